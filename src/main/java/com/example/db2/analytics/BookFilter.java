@@ -0,0 +1,5 @@
+package com.example.db2.analytics;
+
+// Filtros opcionais das consultas analíticas; campos nulos não restringem o resultado
+public record BookFilter(String genre, String nationality, String authorId, Integer fromYear, Integer toYear) {
+}
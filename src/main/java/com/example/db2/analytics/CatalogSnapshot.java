@@ -0,0 +1,360 @@
+package com.example.db2.analytics;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import com.example.db2.model.Author;
+import com.example.db2.model.Book;
+
+// Cópia somente leitura do catálogo em formato colunar. Cada livro ocupa três ints (gênero
+// codificado em dicionário, data de publicação em epoch day e índice do autor) e cada autor
+// um int de nacionalidade mais o ID internado, uma fração do que ocupa uma List<Book>.
+// As consultas varrem as colunas em paralelo, em blocos, sem alocar objetos por linha.
+public final class CatalogSnapshot {
+
+    public enum Dimension { GENRE, YEAR, NATIONALITY, AUTHOR }
+
+    private static final int NONE = -1;     // Valor ausente ou autor desconhecido
+    private static final int ANY = -2;      // Filtro não informado
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final Instant takenAt;
+
+    private final String[] genres;
+    private final String[] nationalities;
+
+    private final String[] authorIds;
+    private final int[] authorNationality;
+
+    // Códigos dos dicionários, para resolver os filtros sem varrer os valores
+    private final Map<String, Integer> genreCodes;
+    private final Map<String, Integer> nationalityCodes;
+    private final Map<String, Integer> authorIndexes;
+
+    private final int bookCount;
+    private final int[] bookGenre;
+    private final int[] bookPublicationDay;
+    private final int[] bookAuthor;
+
+    // Primeiro dia de cada ano presente, para converter epoch day em ano por busca binária
+    private final int firstYear;
+    private final int[] yearStartDays;
+
+    private CatalogSnapshot(Builder builder) {
+        this.takenAt = Instant.now();
+        this.genres = builder.genres.toArray(new String[0]);
+        this.nationalities = builder.nationalities.toArray(new String[0]);
+        this.authorIds = builder.authorIds.toArray(new String[0]);
+        this.authorNationality = builder.authorNationality.toArray();
+        this.genreCodes = Map.copyOf(builder.genreCodes);
+        this.nationalityCodes = Map.copyOf(builder.nationalityCodes);
+        this.authorIndexes = Map.copyOf(builder.authorIndexes);
+        this.bookCount = builder.bookGenre.size;
+        this.bookGenre = builder.bookGenre.toArray();
+        this.bookPublicationDay = builder.bookPublicationDay.toArray();
+        this.bookAuthor = builder.bookAuthor.toArray();
+
+        int minDay = Integer.MAX_VALUE;
+        int maxDay = Integer.MIN_VALUE;
+        for (int day : bookPublicationDay) {
+            if (day != NO_DATE) {
+                minDay = Math.min(minDay, day);
+                maxDay = Math.max(maxDay, day);
+            }
+        }
+        if (minDay > maxDay) {
+            this.firstYear = 0;
+            this.yearStartDays = new int[0];
+        } else {
+            this.firstYear = LocalDate.ofEpochDay(minDay).getYear();
+            int lastYear = LocalDate.ofEpochDay(maxDay).getYear();
+            this.yearStartDays = new int[lastYear - firstYear + 1];
+            for (int i = 0; i < yearStartDays.length; i++) {
+                yearStartDays[i] = (int) LocalDate.of(firstYear + i, 1, 1).toEpochDay();
+            }
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Instant getTakenAt() {
+        return takenAt;
+    }
+
+    public int getBookCount() {
+        return bookCount;
+    }
+
+    public int getAuthorCount() {
+        return authorIds.length;
+    }
+
+    public long count(BookFilter filter) {
+        CompiledFilter compiled = compile(filter);
+        if (compiled == null) {
+            return 0;
+        }
+        return IntStream.range(0, chunkCount())
+                .parallel()
+                .mapToLong(chunk -> {
+                    long matches = 0;
+                    for (int row = chunkStart(chunk); row < chunkEnd(chunk); row++) {
+                        if (compiled.matches(row)) {
+                            matches++;
+                        }
+                    }
+                    return matches;
+                })
+                .sum();
+    }
+
+    // Contagem de livros por valor da dimensão, em ordem decrescente de contagem. Os livros sem valor
+    // na dimensão (sem gênero, sem data ou de autor desconhecido) não entram em nenhum grupo, então a
+    // soma dos grupos pode ser menor que count(filter)
+    public Map<String, Long> groupBy(Dimension dimension, BookFilter filter) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        CompiledFilter compiled = compile(filter);
+        if (compiled == null) {
+            return result;
+        }
+
+        int buckets = switch (dimension) {
+            case GENRE -> genres.length;
+            case YEAR -> yearStartDays.length;
+            case NATIONALITY -> nationalities.length;
+            case AUTHOR -> authorIds.length;
+        };
+
+        long[] counts = IntStream.range(0, chunkCount())
+                .parallel()
+                .mapToObj(chunk -> {
+                    long[] partial = new long[buckets];
+                    for (int row = chunkStart(chunk); row < chunkEnd(chunk); row++) {
+                        if (compiled.matches(row)) {
+                            int bucket = bucketOf(dimension, row);
+                            if (bucket != NONE) {
+                                partial[bucket]++;
+                            }
+                        }
+                    }
+                    return partial;
+                })
+                .reduce(new long[buckets], (a, b) -> {
+                    long[] sum = new long[buckets];
+                    for (int i = 0; i < buckets; i++) {
+                        sum[i] = a[i] + b[i];
+                    }
+                    return sum;
+                });
+
+        IntStream.range(0, buckets)
+                .filter(bucket -> counts[bucket] > 0)
+                .boxed()
+                .sorted((a, b) -> Long.compare(counts[b], counts[a]))
+                .forEach(bucket -> result.put(labelOf(dimension, bucket), counts[bucket]));
+        return result;
+    }
+
+    private int bucketOf(Dimension dimension, int row) {
+        return switch (dimension) {
+            case GENRE -> bookGenre[row];
+            case YEAR -> {
+                int day = bookPublicationDay[row];
+                if (day == NO_DATE) {
+                    yield NONE;
+                }
+                int index = Arrays.binarySearch(yearStartDays, day);
+                yield index >= 0 ? index : -index - 2;
+            }
+            case NATIONALITY -> {
+                int author = bookAuthor[row];
+                yield author == NONE ? NONE : authorNationality[author];
+            }
+            case AUTHOR -> bookAuthor[row];
+        };
+    }
+
+    private String labelOf(Dimension dimension, int bucket) {
+        return switch (dimension) {
+            case GENRE -> genres[bucket];
+            case YEAR -> String.valueOf(firstYear + bucket);
+            case NATIONALITY -> nationalities[bucket];
+            case AUTHOR -> authorIds[bucket];
+        };
+    }
+
+    // Retorna null quando algum valor filtrado não existe no snapshot, ou seja, nenhum livro corresponde
+    private CompiledFilter compile(BookFilter filter) {
+        int genre = ANY;
+        if (filter.genre() != null) {
+            genre = genreCodes.getOrDefault(filter.genre(), NONE);
+            if (genre == NONE) {
+                return null;
+            }
+        }
+
+        int nationality = ANY;
+        if (filter.nationality() != null) {
+            nationality = nationalityCodes.getOrDefault(filter.nationality(), NONE);
+            if (nationality == NONE) {
+                return null;
+            }
+        }
+
+        int author = ANY;
+        if (filter.authorId() != null) {
+            author = authorIndexes.getOrDefault(filter.authorId(), NONE);
+            if (author == NONE) {
+                return null;
+            }
+        }
+
+        // Os anos são limitados ao intervalo presente no snapshot, então qualquer inteiro é aceito
+        // e os limites vêm de yearStartDays, sem criar datas fora do intervalo de LocalDate
+        boolean byDate = filter.fromYear() != null || filter.toYear() != null;
+        int fromDay = Integer.MIN_VALUE + 1;
+        int toDay = Integer.MAX_VALUE;
+        if (byDate) {
+            int lastYear = firstYear + yearStartDays.length - 1;
+            if (yearStartDays.length == 0
+                    || (filter.fromYear() != null && filter.fromYear() > lastYear)
+                    || (filter.toYear() != null && filter.toYear() < firstYear)) {
+                return null;
+            }
+            if (filter.fromYear() != null && filter.fromYear() > firstYear) {
+                fromDay = yearStartDays[filter.fromYear() - firstYear];
+            }
+            if (filter.toYear() != null && filter.toYear() < lastYear) {
+                toDay = yearStartDays[filter.toYear() - firstYear + 1] - 1;
+            }
+        }
+
+        return new CompiledFilter(genre, nationality, author, byDate, fromDay, toDay);
+    }
+
+    private int chunkCount() {
+        return (bookCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    private static int chunkStart(int chunk) {
+        return chunk * CHUNK_SIZE;
+    }
+
+    private int chunkEnd(int chunk) {
+        return Math.min(bookCount, (chunk + 1) * CHUNK_SIZE);
+    }
+
+    private final class CompiledFilter {
+        private final int genre;
+        private final int nationality;
+        private final int author;
+        private final boolean byDate;
+        private final int fromDay;
+        private final int toDay;
+
+        private CompiledFilter(int genre, int nationality, int author, boolean byDate, int fromDay, int toDay) {
+            this.genre = genre;
+            this.nationality = nationality;
+            this.author = author;
+            this.byDate = byDate;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+        }
+
+        boolean matches(int row) {
+            if (genre != ANY && bookGenre[row] != genre) {
+                return false;
+            }
+            if (author != ANY && bookAuthor[row] != author) {
+                return false;
+            }
+            if (nationality != ANY) {
+                int bookAuthorIndex = bookAuthor[row];
+                if (bookAuthorIndex == NONE || authorNationality[bookAuthorIndex] != nationality) {
+                    return false;
+                }
+            }
+            if (byDate) {
+                int day = bookPublicationDay[row];
+                if (day == NO_DATE || day < fromDay || day > toDay) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Os autores devem ser adicionados antes dos livros, para que authorId seja resolvido em índice
+    public static final class Builder {
+        private final List<String> genres = new ArrayList<>();
+        private final Map<String, Integer> genreCodes = new HashMap<>();
+        private final List<String> nationalities = new ArrayList<>();
+        private final Map<String, Integer> nationalityCodes = new HashMap<>();
+
+        private final List<String> authorIds = new ArrayList<>();
+        private final Map<String, Integer> authorIndexes = new HashMap<>();
+        private final IntColumn authorNationality = new IntColumn();
+
+        private final IntColumn bookGenre = new IntColumn();
+        private final IntColumn bookPublicationDay = new IntColumn();
+        private final IntColumn bookAuthor = new IntColumn();
+
+        private Builder() {
+        }
+
+        public Builder addAuthor(Author author) {
+            String id = author.getId().intern();
+            authorIndexes.put(id, authorIds.size());
+            authorIds.add(id);
+            authorNationality.add(encode(author.getNationality(), nationalities, nationalityCodes));
+            return this;
+        }
+
+        public Builder addBook(Book book) {
+            bookGenre.add(encode(book.getGenre(), genres, genreCodes));
+            bookPublicationDay.add(book.getPublicationDate() != null ? (int) book.getPublicationDate().toEpochDay() : NO_DATE);
+            bookAuthor.add(book.getAuthorId() != null ? authorIndexes.getOrDefault(book.getAuthorId(), NONE) : NONE);
+            return this;
+        }
+
+        public CatalogSnapshot build() {
+            return new CatalogSnapshot(this);
+        }
+
+        private static int encode(String value, List<String> dictionary, Map<String, Integer> codes) {
+            if (value == null) {
+                return NONE;
+            }
+            return codes.computeIfAbsent(value, v -> {
+                dictionary.add(v);
+                return dictionary.size() - 1;
+            });
+        }
+    }
+
+    private static final class IntColumn {
+        private int[] values = new int[1024];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.db2.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Arquivo com as entradas mais usadas do JsonResponseCache.
+// Formato: magic, versão do formato e quantidade de entradas (ints), seguidos de cada entrada:
+// chave e versão (short com o tamanho + UTF-8), um byte indicando gzip, o CRC32 dos dados (int)
+// e os dados (int com o tamanho + bytes). Quando há gzip, apenas a forma compactada é gravada.
+// O arquivo é lido de uma vez para a memória (o tamanho é limitado por snapshot-max-size) e não é
+// mapeado: no Windows um arquivo mapeado não pode ser substituído, e o mapeamento só é liberado
+// pelo GC. Na abertura apenas as chaves são indexadas; as entradas são decodificadas sob demanda,
+// e uma entrada cujo CRC não confere (ou que não descompacta) é descartada
+final class CacheSnapshotFile {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheSnapshotFile.class);
+
+    private static final int MAGIC = 0x44423243; // "DB2C"
+    private static final int FORMAT = 2;
+    private static final int ENTRY_OVERHEAD = 2 + 2 + 1 + 4 + 4;
+
+    private final ByteBuffer buffer;
+    private final Map<String, Integer> offsets; // Chave -> posição da versão da entrada, na ordem do arquivo
+
+    // Entrada como gravada no arquivo: data é a forma compactada quando gzip é verdadeiro
+    record Entry(String key, String version, boolean gzip, byte[] data) {
+
+        static Entry of(String key, CachedJson value) {
+            return value.gzip() != null
+                    ? new Entry(key, value.version(), true, value.gzip())
+                    : new Entry(key, value.version(), false, value.json());
+        }
+
+        // Bytes ocupados no arquivo
+        long size() {
+            return ENTRY_OVERHEAD + utf8(key).length + utf8(version).length + data.length;
+        }
+    }
+
+    private CacheSnapshotFile(ByteBuffer buffer, Map<String, Integer> offsets) {
+        this.buffer = buffer;
+        this.offsets = offsets;
+    }
+
+    // Grava em um arquivo temporário e o move sobre o anterior, para que um processo que leia o
+    // arquivo nunca encontre uma gravação pela metade
+    static void write(Path file, List<Entry> entries) throws IOException {
+        long size = 12;
+        for (Entry entry : entries) {
+            size += entry.size();
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot grande demais: " + size + " bytes");
+        }
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer out = ByteBuffer.allocate((int) size);
+        out.putInt(MAGIC).putInt(FORMAT).putInt(entries.size());
+        for (Entry entry : entries) {
+            putString(out, entry.key());
+            putString(out, entry.version());
+            out.put((byte) (entry.gzip() ? 1 : 0))
+                    .putInt(crc(entry.data()))
+                    .putInt(entry.data().length)
+                    .put(entry.data());
+        }
+        out.flip();
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Retorna null se o arquivo não existir; lança IOException se estiver corrompido
+    static CacheSnapshotFile open(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        // Nenhum handle ou mapeamento fica aberto, então a próxima gravação pode substituir o arquivo
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).asReadOnlyBuffer();
+
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                throw new IOException("Formato de snapshot desconhecido: " + file);
+            }
+            int count = buffer.getInt();
+            Map<String, Integer> offsets = new LinkedHashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String key = getString(buffer);
+                offsets.put(key, buffer.position());
+                int versionLength = Short.toUnsignedInt(buffer.getShort());
+                buffer.position(buffer.position() + versionLength); // Versão
+                buffer.get(); // Indicador de gzip
+                buffer.getInt(); // CRC32
+                int dataLength = buffer.getInt();
+                buffer.position(buffer.position() + dataLength); // Dados
+            }
+            return new CacheSnapshotFile(buffer, offsets);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Snapshot truncado: " + file, e);
+        }
+    }
+
+    boolean isEmpty() {
+        return offsets.isEmpty();
+    }
+
+    // Retorna a entrada se ela existir com a versão informada. Cada entrada é entregue no máximo
+    // uma vez (depois disso está no cache); as de versão diferente e as corrompidas são descartadas
+    synchronized CachedJson take(String key, String version) {
+        Integer offset = offsets.remove(key);
+        if (offset == null) {
+            return null;
+        }
+        Entry entry = read(key, offset);
+        if (entry == null || !entry.version().equals(version)) {
+            return null;
+        }
+        if (!entry.gzip()) {
+            return new CachedJson(version, entry.data(), null);
+        }
+        try {
+            return new CachedJson(version, decompress(entry.data()), entry.data());
+        } catch (IOException e) {
+            log.warn("Entrada {} do snapshot do cache de respostas descartada: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    // Entradas ainda não entregues, na ordem do arquivo (das mais usadas para as menos), sem as
+    // chaves informadas e as corrompidas. Continuam disponíveis para take
+    synchronized List<Entry> remaining(Set<String> excludedKeys) {
+        List<Entry> entries = new ArrayList<>();
+        Set<String> corrupted = new HashSet<>();
+        offsets.forEach((key, offset) -> {
+            if (excludedKeys.contains(key)) {
+                return;
+            }
+            Entry entry = read(key, offset);
+            if (entry != null) {
+                entries.add(entry);
+            } else {
+                corrupted.add(key);
+            }
+        });
+        offsets.keySet().removeAll(corrupted);
+        return entries;
+    }
+
+    synchronized void discard(String key) {
+        offsets.remove(key);
+    }
+
+    // Retorna null (e registra no log) se o CRC32 dos dados não conferir
+    private Entry read(String key, int offset) {
+        ByteBuffer in = buffer.duplicate().position(offset);
+        String version = getString(in);
+        boolean gzip = in.get() == 1;
+        int crc = in.getInt();
+        byte[] data = new byte[in.getInt()];
+        in.get(data);
+        if (crc(data) != crc) {
+            log.warn("Entrada {} do snapshot do cache de respostas descartada: CRC32 não confere", key);
+            return null;
+        }
+        return new Entry(key, version, gzip, data);
+    }
+
+    private static int crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        byte[] bytes = utf8(value);
+        out.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] decompress(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+}
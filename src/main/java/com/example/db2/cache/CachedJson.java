@@ -0,0 +1,13 @@
+package com.example.db2.cache;
+
+// Resposta já serializada em JSON (UTF-8) e, opcionalmente, compactada com gzip. version é o ETag
+// da representação, usado para descartar a entrada quando a entidade muda
+public record CachedJson(String version, byte[] json, byte[] gzip) {
+
+    private static final int OVERHEAD = 64;
+
+    // Estimativa dos bytes ocupados em memória, usada no orçamento do cache
+    public long size() {
+        return OVERHEAD + version.length() * 2L + json.length + (gzip != null ? gzip.length : 0);
+    }
+}
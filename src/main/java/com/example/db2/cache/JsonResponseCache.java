@@ -0,0 +1,325 @@
+package com.example.db2.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PreDestroy;
+
+// Cache das respostas completas de GET /api/books/{id} e GET /api/authors/{id}, guardadas já
+// serializadas para que um acerto seja escrito direto na resposta, sem passar pelo Jackson.
+// Cada entrada é validada pela versão atual da entidade (o ETag) e o tamanho total é limitado em
+// bytes, descartando as entradas usadas há mais tempo. As leituras de chaves diferentes não
+// disputam um lock único: as entradas são distribuídas em segmentos independentes.
+// Com catalog.response-cache.snapshot-file configurado, as entradas mais usadas são gravadas
+// periodicamente (e no desligamento) em um arquivo local. Após um reinício, as
+// faltas no cache consultam esse arquivo, e cada entrada só é reaproveitada se a versão ainda
+// for a atual. Enquanto o cache aquece, as gravações completam o arquivo com as entradas do
+// snapshot anterior que ainda não foram lidas
+@Component
+public class JsonResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(JsonResponseCache.class);
+
+    // Respostas menores que isso não compensam a compactação
+    private static final int MIN_GZIP_SIZE = 1024;
+
+    // O cache é dividido em segmentos, cada um com o seu lock, sua ordem LRU e uma parte do
+    // orçamento, para que leituras de chaves diferentes não disputem o mesmo monitor. Orçamentos
+    // pequenos ficam em um único segmento, o que preserva a ordem LRU exata
+    private static final int MAX_SEGMENTS = 16;
+    private static final long MIN_SEGMENT_BYTES = DataSize.ofMegabytes(1).toBytes();
+
+    private final Segment[] segments;
+    private final boolean gzip;
+    private final Path snapshotFile;
+    private final long snapshotMaxBytes;
+    private final LongAdder hits = new LongAdder();
+
+    // Snapshot da execução anterior, aberto na primeira falta (ou gravação) e liberado quando todas
+    // as entradas tiverem sido reaproveitadas ou descartadas. Depois disso as faltas não passam
+    // pelo lock do snapshot
+    private final Object warmStartLock = new Object();
+    private CacheSnapshotFile warmStart;
+    private boolean warmStartOpened;
+    private volatile boolean warmStartDone;
+
+    public JsonResponseCache(
+            @Value("${catalog.response-cache.max-size:32MB}") DataSize maxSize,
+            @Value("${catalog.response-cache.gzip:true}") boolean gzip,
+            @Value("${catalog.response-cache.snapshot-file:}") String snapshotFile,
+            @Value("${catalog.response-cache.snapshot-max-size:8MB}") DataSize snapshotMaxSize) {
+        long maxBytes = maxSize.toBytes();
+        int count = (int) Math.max(1, Math.min(MAX_SEGMENTS, maxBytes / MIN_SEGMENT_BYTES));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maxBytes / count);
+        }
+        this.gzip = gzip;
+        this.snapshotFile = snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+        this.snapshotMaxBytes = snapshotMaxSize.toBytes();
+        this.warmStartDone = this.snapshotFile == null;
+    }
+
+    public static String bookKey(String id) {
+        return "book:" + id;
+    }
+
+    public static String authorKey(String id) {
+        return "author:" + id;
+    }
+
+    // Indica se as respostas grandes são guardadas também compactadas
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    // Retorna null se não houver entrada para a chave ou se ela for de outra versão
+    public CachedJson get(String key, String version) {
+        Segment segment = segmentFor(key);
+        CachedJson entry = segment.get(key, version);
+        if (entry == null) {
+            entry = fromWarmStart(key, version);
+            if (entry != null) {
+                segment.store(key, entry);
+            }
+        }
+        if (entry != null) {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    // Guarda a resposta e a retorna; entradas maiores que um quarto do segmento não são guardadas
+    public CachedJson put(String key, String version, byte[] json) {
+        CachedJson entry = new CachedJson(version, json, gzip && json.length >= MIN_GZIP_SIZE ? compress(json) : null);
+        Segment segment = segmentFor(key);
+        if (entry.size() <= segment.maxBytes / 4) {
+            segment.store(key, entry);
+        }
+        return entry;
+    }
+
+    public void evict(String key) {
+        segmentFor(key).remove(key);
+        if (!warmStartDone) {
+            synchronized (warmStartLock) {
+                if (warmStart != null) {
+                    warmStart.discard(key); // Descarta também a cópia do snapshot
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long getUsedBytes() {
+        long usedBytes = 0;
+        for (Segment segment : segments) {
+            usedBytes += segment.usedBytes();
+        }
+        return usedBytes;
+    }
+
+    // Quantidade de leituras servidas pelo cache desde a inicialização
+    public long getHits() {
+        return hits.sum();
+    }
+
+    // Grava as entradas usadas mais recentemente, até snapshot-max-size bytes. O espaço que sobrar é
+    // preenchido com as entradas do snapshot anterior ainda não lidas, para que uma gravação logo
+    // após o reinício não troque o arquivo por um quase vazio
+    @Scheduled(fixedDelayString = "${catalog.response-cache.snapshot-interval:PT5M}",
+            initialDelayString = "${catalog.response-cache.snapshot-interval:PT5M}")
+    @PreDestroy
+    public void saveSnapshot() {
+        if (snapshotFile == null) {
+            return;
+        }
+
+        // Cada segmento é copiado sob o seu lock; a ordem entre segmentos vem do último acesso
+        List<Recent> recent = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.copyTo(recent);
+        }
+        recent.sort(Comparator.comparingLong(Recent::lastAccess).reversed());
+
+        List<CacheSnapshotFile.Entry> snapshot = new ArrayList<>();
+        Set<String> keys = new HashSet<>();
+        long bytes = 0;
+        for (Recent entry : recent) {
+            CacheSnapshotFile.Entry hot = CacheSnapshotFile.Entry.of(entry.key(), entry.value());
+            if (bytes + hot.size() > snapshotMaxBytes) {
+                break;
+            }
+            bytes += hot.size();
+            snapshot.add(hot);
+            keys.add(hot.key());
+        }
+
+        synchronized (warmStartLock) {
+            CacheSnapshotFile previous = openWarmStart();
+            if (previous != null && bytes < snapshotMaxBytes) {
+                for (CacheSnapshotFile.Entry restored : previous.remaining(keys)) {
+                    if (bytes + restored.size() > snapshotMaxBytes) {
+                        break;
+                    }
+                    bytes += restored.size();
+                    snapshot.add(restored);
+                }
+            }
+            try {
+                CacheSnapshotFile.write(snapshotFile, snapshot);
+            } catch (IOException e) {
+                log.warn("Falha ao gravar o snapshot do cache de respostas em {}", snapshotFile, e);
+            }
+        }
+    }
+
+    private CachedJson fromWarmStart(String key, String version) {
+        if (warmStartDone) {
+            return null;
+        }
+        synchronized (warmStartLock) {
+            if (openWarmStart() == null) {
+                return null;
+            }
+            CachedJson entry = warmStart.take(key, version);
+            if (warmStart.isEmpty()) {
+                warmStart = null; // Todas as entradas foram reaproveitadas ou descartadas
+                warmStartDone = true;
+            }
+            return entry;
+        }
+    }
+
+    // Chamado com warmStartLock. Retorna o snapshot anterior, ou null se não houver (ou se já
+    // tiver sido consumido)
+    private CacheSnapshotFile openWarmStart() {
+        if (!warmStartOpened) {
+            warmStartOpened = true;
+            if (snapshotFile != null) {
+                try {
+                    warmStart = CacheSnapshotFile.open(snapshotFile);
+                } catch (IOException e) {
+                    log.warn("Snapshot do cache de respostas ignorado: {}", e.getMessage());
+                }
+            }
+        }
+        if (warmStart != null && warmStart.isEmpty()) {
+            warmStart = null;
+        }
+        if (warmStart == null) {
+            warmStartDone = true;
+        }
+        return warmStart;
+    }
+
+    private Segment segmentFor(String key) {
+        return segments.length == 1 ? segments[0] : segments[Math.floorMod(key.hashCode(), segments.length)];
+    }
+
+    // Entrada com o momento do último acesso (alterado com o lock do segmento), usado para ordenar
+    // o snapshot entre os segmentos
+    private static final class Node {
+        private final CachedJson value;
+        private long lastAccess = System.nanoTime();
+
+        private Node(CachedJson value) {
+            this.value = value;
+        }
+    }
+
+    private static final class Segment {
+
+        private final long maxBytes;
+
+        // Em ordem de acesso: a primeira entrada é a usada há mais tempo
+        private final LinkedHashMap<String, Node> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long usedBytes;
+
+        private Segment(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized CachedJson get(String key, String version) {
+            Node node = entries.get(key);
+            if (node == null) {
+                return null;
+            }
+            if (!node.value.version().equals(version)) {
+                remove(key);
+                return null;
+            }
+            node.lastAccess = System.nanoTime();
+            return node.value;
+        }
+
+        synchronized void store(String key, CachedJson entry) {
+            remove(key);
+            entries.put(key, new Node(entry));
+            usedBytes += entry.size();
+
+            Iterator<Map.Entry<String, Node>> eldest = entries.entrySet().iterator();
+            while (usedBytes > maxBytes && eldest.hasNext()) {
+                usedBytes -= eldest.next().getValue().value.size();
+                eldest.remove();
+            }
+        }
+
+        synchronized void remove(String key) {
+            Node removed = entries.remove(key);
+            if (removed != null) {
+                usedBytes -= removed.value.size();
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            usedBytes = 0;
+        }
+
+        synchronized long usedBytes() {
+            return usedBytes;
+        }
+
+        synchronized void copyTo(List<Recent> target) {
+            entries.forEach((key, node) -> target.add(new Recent(key, node.value, node.lastAccess)));
+        }
+    }
+
+    private record Recent(String key, CachedJson value, long lastAccess) {
+    }
+
+    private static byte[] compress(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
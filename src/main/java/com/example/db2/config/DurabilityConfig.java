@@ -0,0 +1,21 @@
+package com.example.db2.config;
+
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+
+import com.example.db2.durability.DurabilityAwareMongoDatabaseFactory;
+import com.mongodb.client.MongoClient;
+
+// Substitui a fábrica padrão do Spring Boot pela que aplica o perfil de durabilidade da requisição
+@Configuration
+@Profile("!memory")
+public class DurabilityConfig {
+
+    @Bean
+    public MongoDatabaseFactory mongoDatabaseFactory(MongoClient mongoClient, MongoProperties properties) {
+        return new DurabilityAwareMongoDatabaseFactory(mongoClient, properties.getMongoClientDatabase());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.db2.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.RuntimeWiringConfigurer;
+
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.scalars.ExtendedScalars;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+
+// Limites aplicados antes da execução de cada consulta GraphQL, para que uma consulta muito
+// aninhada ou com listas grandes seja rejeitada sem chegar ao banco
+@Configuration
+public class GraphQlConfig {
+
+    @Bean
+    public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(
+            @Value("${catalog.graphql.max-depth:6}") int maxDepth) {
+        return new MaxQueryDepthInstrumentation(maxDepth);
+    }
+
+    // Long para os campos version, que são Long no modelo e não cabem no Int do GraphQL
+    @Bean
+    public RuntimeWiringConfigurer longScalarConfigurer() {
+        return wiring -> wiring.scalar(ExtendedScalars.GraphQLLong);
+    }
+
+    // Campos de lista multiplicam o custo dos filhos pelo argumento limit (todas as listas do
+    // esquema o declaram) ou, na falta dele, por uma estimativa de elementos por lista
+    @Bean
+    public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+            @Value("${catalog.graphql.max-complexity:5000}") int maxComplexity,
+            @Value("${catalog.graphql.list-size-estimate:10}") int listSizeEstimate) {
+        return new MaxQueryComplexityInstrumentation(maxComplexity, (environment, childComplexity) -> {
+            GraphQLType type = GraphQLTypeUtil.unwrapNonNull(environment.getFieldDefinition().getType());
+            if (!GraphQLTypeUtil.isList(type)) {
+                return 1 + childComplexity;
+            }
+            Object limit = environment.getArguments().get("limit");
+            int size = limit instanceof Integer value ? value : listSizeEstimate;
+            return 1 + size * Math.max(childComplexity, 1);
+        });
+    }
+}
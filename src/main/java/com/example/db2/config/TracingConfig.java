@@ -0,0 +1,48 @@
+package com.example.db2.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.observability.ContextProviderFactory;
+import org.springframework.data.mongodb.observability.MongoObservationCommandListener;
+
+import com.example.db2.tracing.FileSpanExporter;
+import com.example.db2.tracing.TracingJackson2HttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.observation.ObservationRegistry;
+
+// Spans por requisição: o span HTTP (propagado pelos cabeçalhos W3C traceparent/tracestate) tem
+// como filhos as chamadas aos repositórios, os comandos do driver do Mongo e a conversão JSON.
+// A amostragem e o exportador OTLP são configurados pelas propriedades management.tracing.* e
+// management.otlp.tracing.*; catalog.tracing.file grava os spans em um arquivo local
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public TracingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(
+            ObjectMapper objectMapper, ObservationRegistry observationRegistry) {
+        return new TracingJackson2HttpMessageConverter(objectMapper, observationRegistry);
+    }
+
+    @Bean
+    @Profile("!memory")
+    public MongoClientSettingsBuilderCustomizer mongoObservationCustomizer(ObservationRegistry observationRegistry) {
+        // O ContextProvider liga cada comando ao span corrente da requisição
+        return settings -> settings
+                .contextProvider(ContextProviderFactory.create(observationRegistry))
+                .addCommandListener(new MongoObservationCommandListener(observationRegistry));
+    }
+
+    @Bean
+    @ConditionalOnProperty("catalog.tracing.file")
+    public FileSpanExporter fileSpanExporter(@Value("${catalog.tracing.file}") String file) throws IOException {
+        return new FileSpanExporter(Path.of(file));
+    }
+}
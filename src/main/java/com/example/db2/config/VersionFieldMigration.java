@@ -0,0 +1,32 @@
+package com.example.db2.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.example.db2.model.Author;
+import com.example.db2.model.Book;
+
+// Documentos gravados antes do campo version seriam tratados como novos pelo @Version
+// (e a atualização viraria uma inserção duplicada), então recebem a versão inicial na subida
+@Component
+@Profile("!memory")
+public class VersionFieldMigration implements ApplicationRunner {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query missingVersion = Query.query(Criteria.where("version").exists(false));
+        Update initialVersion = new Update().set("version", 0L);
+        mongoTemplate.updateMulti(missingVersion, initialVersion, Book.class);
+        mongoTemplate.updateMulti(missingVersion, initialVersion, Author.class);
+    }
+}
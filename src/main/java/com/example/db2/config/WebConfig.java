@@ -0,0 +1,26 @@
+package com.example.db2.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.example.db2.durability.DurabilityInterceptor;
+import com.example.db2.durability.DurabilityTaskDecorator;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new DurabilityInterceptor()).addPathPatterns("/api/**");
+    }
+
+    // O Spring Boot aplica o TaskDecorator ao applicationTaskExecutor, que o Spring MVC usa para
+    // escrever respostas assíncronas
+    @Bean
+    public TaskDecorator durabilityTaskDecorator() {
+        return new DurabilityTaskDecorator();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.db2.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.db2.analytics.BookFilter;
+import com.example.db2.analytics.CatalogSnapshot;
+import com.example.db2.dto.AnalyticsResponse;
+import com.example.db2.service.CatalogSnapshotService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/analytics")
+@Tag(name = "Análises", description = "Consultas analíticas servidas por um snapshot em memória do catálogo")
+public class AnalyticsController {
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @GetMapping("/books")
+    @Operation(summary = "Contar e agrupar livros", description = "Conta os livros que atendem aos filtros e, opcionalmente, agrupa por gênero, ano, nacionalidade do autor ou autor. O total conta todos os livros filtrados, inclusive os que não têm valor na dimensão agrupada e por isso ficam fora dos grupos. Os dados podem estar alguns minutos defasados")
+    public AnalyticsResponse countBooks(
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) String nationality,
+            @RequestParam(required = false) String authorId,
+            @RequestParam(required = false) Integer fromYear,
+            @RequestParam(required = false) Integer toYear,
+            @RequestParam(required = false) CatalogSnapshot.Dimension groupBy) {
+        CatalogSnapshot snapshot = catalogSnapshotService.getSnapshot();
+        BookFilter filter = new BookFilter(genre, nationality, authorId, fromYear, toYear);
+
+        if (groupBy == null) {
+            return new AnalyticsResponse(snapshot.count(filter), null, snapshot.getTakenAt());
+        }
+        // O total inclui os livros sem valor na dimensão, que ficam fora dos grupos, e coincide com a
+        // contagem sem agrupamento
+        Map<String, Long> groups = snapshot.groupBy(groupBy, filter);
+        return new AnalyticsResponse(snapshot.count(filter), groups, snapshot.getTakenAt());
+    }
+
+    @GetMapping("/authors/top")
+    @Operation(summary = "Autores com mais livros", description = "Retorna os IDs dos autores com mais livros que atendem aos filtros, em ordem decrescente")
+    public AnalyticsResponse topAuthors(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) String nationality,
+            @RequestParam(required = false) Integer fromYear,
+            @RequestParam(required = false) Integer toYear) {
+        CatalogSnapshot snapshot = catalogSnapshotService.getSnapshot();
+        BookFilter filter = new BookFilter(genre, nationality, null, fromYear, toYear);
+
+        Map<String, Long> top = new LinkedHashMap<>();
+        snapshot.groupBy(CatalogSnapshot.Dimension.AUTHOR, filter)
+                .entrySet()
+                .stream()
+                .limit(Math.max(limit, 0))
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        long total = top.values().stream().mapToLong(Long::longValue).sum();
+        return new AnalyticsResponse(total, top, snapshot.getTakenAt());
+    }
+}
@@ -1,10 +1,27 @@
 package com.example.db2.controller;
 
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Range.Bound;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,16 +30,34 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.db2.cache.CachedJson;
+import com.example.db2.cache.JsonResponseCache;
 import com.example.db2.dto.AuthorBookRequest;
 import com.example.db2.dto.AuthorRequest;
+import com.example.db2.dto.AuthorSummary;
+import com.example.db2.dto.AuthorSummaryPage;
+import com.example.db2.durability.Durability;
+import com.example.db2.durability.DurabilityProfile;
 import com.example.db2.model.Author;
 import com.example.db2.model.Book;
+import com.example.db2.model.ChangeCounter;
 import com.example.db2.repository.AuthorRepository;
 import com.example.db2.repository.BookRepository;
+import com.example.db2.repository.ChangeCounterRepository;
+import com.example.db2.repository.EntityVersion;
+import com.example.db2.service.CatalogStatsService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -32,16 +67,107 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Autores", description = "Endpoints para operações CRUD de autores")
 public class AuthorController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     private AuthorRepository authorRepository;
 
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private CatalogStatsService catalogStatsService;
+
+    @Autowired
+    private ChangeCounterRepository changeCounterRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JsonResponseCache responseCache;
+
     @GetMapping
-    @Operation(summary = "Listar todos os autores", description = "Retorna uma lista de todos os autores")
-    public List<Author> getAllAuthors() {
-        return authorRepository.findAll();
+    @Operation(summary = "Listar todos os autores", description = "Retorna uma lista de todos os autores. Suporta If-None-Match com o ETag da última listagem")
+    public ResponseEntity<List<Author>> getAllAuthors(WebRequest request) {
+        // O ETag da lista é o contador de alterações da coleção, lido sem percorrer os autores
+        if (request.checkNotModified(ETags.of(changeCounterRepository.currentValue(ChangeCounter.AUTHORS)))) {
+            return null; // Retorna 304 se a lista não mudou
+        }
+        return ResponseEntity.ok(authorRepository.findAll());
+    }
+
+    @Operation(summary = "Listar autores com a quantidade de livros", description = "Retorna, paginados por cursor, os autores com a quantidade de livros de cada um (e opcionalmente a data do livro mais recente), calculadas em uma única agregação no banco. Ordena por ID (padrão), contando apenas os autores da página, ou por quantidade de livros (decrescente), que conta os livros de todos os autores a cada página")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de autores retornada com sucesso"),
+            @ApiResponse(responseCode = "304", description = "Autores e livros inalterados desde o ETag informado"),
+            @ApiResponse(responseCode = "400", description = "Ordenação, limite ou cursor inválido")
+    })
+    @GetMapping(params = "withBookCounts=true")
+    public ResponseEntity<?> getAuthorsWithBookCounts(
+            @Parameter(description = "Quantidade máxima de autores por página") @RequestParam(defaultValue = "20") int limit,
+            @Parameter(description = "Cursor da próxima página (nextCursor da resposta anterior)") @RequestParam(required = false) String after,
+            @Parameter(description = "Ordenação: id (padrão) ou bookCount") @RequestParam(defaultValue = AuthorSummaryCursor.BY_ID) String sort,
+            @Parameter(description = "Inclui a data de publicação do livro mais recente de cada autor") @RequestParam(defaultValue = "false") boolean includeLatestPublicationDate,
+            WebRequest request) {
+        if (!AuthorSummaryCursor.SORT_FIELDS.contains(sort)) {
+            return ResponseEntity.badRequest().body("Erro: Ordenação inválida: " + sort + ".");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("Erro: limit deve estar entre 1 e " + MAX_PAGE_SIZE + ".");
+        }
+        AuthorSummaryCursor cursor = null;
+        if (after != null) {
+            try {
+                cursor = AuthorSummaryCursor.decode(sort, after);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body("Erro: Cursor inválido.");
+            }
+        }
+
+        // A página depende apenas das coleções de autores e de livros
+        if (request.checkNotModified(ETags.of(
+                changeCounterRepository.currentValue(ChangeCounter.AUTHORS),
+                changeCounterRepository.currentValue(ChangeCounter.BOOKS)))) {
+            return null;
+        }
+
+        // Busca um autor a mais para saber se existe próxima página
+        List<AuthorSummary> authors = authorRepository.findSummaries(
+                AuthorSummaryCursor.BY_BOOK_COUNT.equals(sort),
+                cursor != null ? cursor.getBookCount() : null,
+                cursor != null ? cursor.getId() : null,
+                limit + 1,
+                includeLatestPublicationDate);
+        String nextCursor = null;
+        if (authors.size() > limit) {
+            authors = authors.subList(0, limit);
+            nextCursor = AuthorSummaryCursor.encode(sort, authors.get(limit - 1));
+        }
+        return ResponseEntity.ok(new AuthorSummaryPage(authors, nextCursor));
+    }
+
+    @Operation(summary = "Listar autores por período de nascimento", description = "Retorna, de forma paginada, os autores nascidos entre as datas informadas (inclusive). Ao menos uma das datas deve ser fornecida")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de autores retornada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Nenhuma data informada ou período inválido")
+    })
+    @GetMapping("/born")
+    public ResponseEntity<?> getAuthorsByBirthDate(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @PageableDefault(size = 20, sort = "birthDate", direction = Sort.Direction.ASC) Pageable pageable) {
+        if (from == null && to == null) {
+            return ResponseEntity.badRequest().body("Erro: Informe ao menos uma das datas (from ou to).");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().body("Erro: A data inicial deve ser anterior à data final.");
+        }
+
+        Range<LocalDate> period = Range.of(
+                from != null ? Bound.inclusive(from) : Bound.unbounded(),
+                to != null ? Bound.inclusive(to) : Bound.unbounded());
+        return ResponseEntity.ok(new PagedModel<>(authorRepository.findByBirthDateBetween(period, pageable)));
     }
 
     @ApiResponses(value = {
@@ -61,32 +187,200 @@ public class AuthorController {
         author.setNationality(authorRequest.getNationality());
 
         Author savedAuthor = authorRepository.save(author);
+        catalogStatsService.authorCreated(savedAuthor);
+        changeCounterRepository.increment(ChangeCounter.AUTHORS);
         return ResponseEntity.ok(savedAuthor);
     }
 
-    @Operation(summary = "Obter autor por ID com seus livros", description = "Retorna os detalhes de um autor específico e seus livros com base no ID fornecido.")
+    @Operation(summary = "Obter autor por ID com seus livros", description = "Retorna os detalhes de um autor específico e seus livros com base no ID fornecido. Com booksLimit os livros são paginados por cursor (booksNextCursor). Suporta If-None-Match com o ETag da última leitura")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Autor e seus livros encontrados com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Campo, ordenação, limite ou cursor inválido"),
+            @ApiResponse(responseCode = "304", description = "Autor e livros inalterados desde o ETag informado"),
             @ApiResponse(responseCode = "404", description = "Autor não encontrado com o ID fornecido")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<AuthorBookRequest> getAuthorById(@PathVariable String id) {
-        Optional<Author> authorOptional = authorRepository.findById(id);
+    public ResponseEntity<?> getAuthorById(
+            @PathVariable String id,
+            @Parameter(description = "Campos do autor a retornar, separados por vírgula (ex.: name,books)") @RequestParam(required = false) String fields,
+            @Parameter(description = "Campos de cada livro a retornar, separados por vírgula (ex.: title,isbn)") @RequestParam(required = false) String bookFields,
+            @Parameter(description = "Quantidade máxima de livros a retornar; ativa a paginação dos livros") @RequestParam(required = false) Integer booksLimit,
+            @Parameter(description = "Cursor da próxima página de livros (booksNextCursor da resposta anterior)") @RequestParam(required = false) String booksAfter,
+            @Parameter(description = "Ordenação dos livros paginados: publicationDate ou title") @RequestParam(defaultValue = "publicationDate") String booksSort,
+            WebRequest request) throws JsonProcessingException {
+        Set<String> selectedFields = FieldSelection.parse(fields);
+        Set<String> selectedBookFields = FieldSelection.parse(bookFields);
+        String invalidField = FieldSelection.firstInvalid(selectedFields, FieldSelection.AUTHOR_FIELDS);
+        if (invalidField == null) {
+            invalidField = FieldSelection.firstInvalid(selectedBookFields, FieldSelection.BOOK_FIELDS);
+        }
+        if (invalidField != null) {
+            return ResponseEntity.badRequest().body("Erro: Campo inválido: " + invalidField + ".");
+        }
+        if (!BookCursor.SORT_FIELDS.contains(booksSort)) {
+            return ResponseEntity.badRequest().body("Erro: Ordenação inválida: " + booksSort + ".");
+        }
+        if (booksLimit == null && booksAfter != null) {
+            return ResponseEntity.badRequest().body("Erro: Informe booksLimit para paginar os livros.");
+        }
+        if (booksLimit != null && (booksLimit < 1 || booksLimit > MAX_PAGE_SIZE)) {
+            return ResponseEntity.badRequest().body("Erro: booksLimit deve estar entre 1 e " + MAX_PAGE_SIZE + ".");
+        }
+        BookCursor cursor = null;
+        if (booksAfter != null) {
+            try {
+                cursor = BookCursor.decode(booksSort, booksAfter);
+            } catch (IllegalArgumentException | DateTimeException e) {
+                return ResponseEntity.badRequest().body("Erro: Cursor inválido.");
+            }
+        }
+
+        if (selectedFields == null && selectedBookFields == null && booksLimit == null) {
+            return getCachedAuthor(id, request);
+        }
+
+        // O ETag combina a versão do autor com o contador de alterações dos livros desse autor; na
+        // revalidação apenas esses dois valores são lidos
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Optional<EntityVersion> version = authorRepository.findVersionById(id);
+            if (version.isPresent() && request.checkNotModified(
+                    ETags.of(version.get().getVersion(), changeCounterRepository.currentValue(ChangeCounter.authorBooks(id))))) {
+                return null; // Retorna 304 sem carregar o autor e seus livros
+            }
+        }
+
+        Optional<Author> authorOptional = selectedFields == null
+                ? authorRepository.findById(id)
+                : authorRepository.findByIdWithFields(id, authorFieldsOf(selectedFields));
         if (authorOptional.isPresent()) {
             Author author = authorOptional.get();
-            List<Book> books = bookRepository.findByAuthorId(author.getId());
+            if (request.checkNotModified(
+                    ETags.of(author.getVersion(), changeCounterRepository.currentValue(ChangeCounter.authorBooks(id))))) {
+                return null;
+            }
+
+            // Os livros só são buscados se fizerem parte da resposta
+            List<Book> books = null;
+            String nextCursor = null;
+            if ((selectedFields == null || selectedFields.contains("books")) && booksLimit != null) {
+                // Busca um livro a mais para saber se existe próxima página
+                books = bookRepository.findPageByAuthorId(author.getId(), booksSort,
+                        cursor != null ? cursor.getValue() : null, cursor != null ? cursor.getId() : null,
+                        booksLimit + 1, selectedBookFields);
+                if (books.size() > booksLimit) {
+                    books = books.subList(0, booksLimit);
+                    nextCursor = BookCursor.encode(booksSort, books.get(booksLimit - 1));
+                }
+            } else if (selectedFields == null || selectedFields.contains("books")) {
+                books = selectedBookFields == null
+                        ? bookRepository.findByAuthorId(author.getId())
+                        : bookRepository.findByAuthorIdWithFields(author.getId(), selectedBookFields);
+            }
             AuthorBookRequest authorDTO = new AuthorBookRequest(
                     author.getId(),
                     author.getName(),
                     author.getBirthDate(),
                     author.getNationality(),
                     books);
-            return ResponseEntity.ok(authorDTO);
+            authorDTO.setBooksNextCursor(nextCursor);
+            if (selectedFields == null && selectedBookFields == null) {
+                return ResponseEntity.ok(authorDTO);
+            }
+            return ResponseEntity.ok(FieldSelection.apply(authorDTO, selectedBookFields, selectedFields));
         } else {
             return ResponseEntity.notFound().build(); // Retorna 404 se o autor não for encontrado
         }
     }
 
+    // A resposta completa vem do cache de JSON já serializado. A entrada é validada pelo mesmo ETag
+    // (versão do autor e contador de alterações dos livros do autor), e o autor e seus livros só são
+    // carregados e serializados quando ela não existe
+    private ResponseEntity<?> getCachedAuthor(String id, WebRequest request) throws JsonProcessingException {
+        Optional<EntityVersion> version = authorRepository.findVersionById(id);
+        if (!version.isPresent()) {
+            return ResponseEntity.notFound().build(); // Retorna 404 se o autor não for encontrado
+        }
+        long booksCounter = changeCounterRepository.currentValue(ChangeCounter.authorBooks(id));
+        String etag = ETags.of(version.get().getVersion(), booksCounter);
+        if (request.checkNotModified(CachedResponses.etag(etag, request, responseCache))) {
+            return null; // Retorna 304 sem carregar o autor e seus livros
+        }
+
+        String key = JsonResponseCache.authorKey(id);
+        CachedJson cached = responseCache.get(key, etag);
+        if (cached == null) {
+            Optional<Author> authorOptional = authorRepository.findById(id);
+            if (!authorOptional.isPresent()) {
+                return ResponseEntity.notFound().build();
+            }
+            Author author = authorOptional.get();
+            AuthorBookRequest authorDTO = new AuthorBookRequest(
+                    author.getId(),
+                    author.getName(),
+                    author.getBirthDate(),
+                    author.getNationality(),
+                    bookRepository.findByAuthorId(author.getId()));
+            cached = responseCache.put(key, ETags.of(author.getVersion(), booksCounter), objectMapper.writeValueAsBytes(authorDTO));
+        }
+        return CachedResponses.of(cached, request);
+    }
+
+    @Operation(summary = "Obter autor por ID com seus livros em streaming", description = "Mesma resposta do detalhe do autor, mas os livros são escritos à medida que são lidos do banco, sem carregá-los todos em memória. Indicado para autores com muitos livros. Apenas bookFields é aceito: fields, booksLimit e If-None-Match são ignorados, e a resposta não tem ETag nem passa pelo cache")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Autor e seus livros enviados com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Campo inválido em bookFields"),
+            @ApiResponse(responseCode = "404", description = "Autor não encontrado com o ID fornecido")
+    })
+    @GetMapping(value = "/{id}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAuthorById(
+            @PathVariable String id,
+            @Parameter(description = "Campos de cada livro a retornar, separados por vírgula (ex.: title,isbn)") @RequestParam(required = false) String bookFields) {
+        Set<String> selectedBookFields = FieldSelection.parse(bookFields);
+        String invalidField = FieldSelection.firstInvalid(selectedBookFields, FieldSelection.BOOK_FIELDS);
+        if (invalidField != null) {
+            // O tipo de retorno é fixo em StreamingResponseBody, então a mensagem é escrita pelo próprio corpo
+            byte[] message = ("Erro: Campo inválido: " + invalidField + ".").getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.badRequest()
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body(out -> out.write(message));
+        }
+
+        Optional<Author> authorOptional = authorRepository.findById(id);
+        if (!authorOptional.isPresent()) {
+            return ResponseEntity.notFound().build(); // Retorna 404 se o autor não for encontrado
+        }
+        Author author = authorOptional.get();
+        ObjectWriter bookWriter = objectMapper.writer(FieldSelection.filters(selectedBookFields, null));
+
+        // O cabeçalho do autor é escrito primeiro e cada livro é serializado assim que sai do cursor
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out);
+                    Stream<Book> books = selectedBookFields == null
+                            ? bookRepository.streamByAuthorId(author.getId())
+                            : bookRepository.streamByAuthorIdWithFields(author.getId(), selectedBookFields)) {
+                generator.writeStartObject();
+                generator.writeStringField("id", author.getId());
+                generator.writeStringField("name", author.getName());
+                generator.writeObjectField("birthDate", author.getBirthDate());
+                generator.writeStringField("nationality", author.getNationality());
+                generator.writeArrayFieldStart("books");
+                Iterator<Book> iterator = books.iterator();
+                while (iterator.hasNext()) {
+                    bookWriter.writeValue(generator, iterator.next());
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static Set<String> authorFieldsOf(Set<String> selectedFields) {
+        Set<String> authorFields = new HashSet<>(selectedFields);
+        authorFields.remove("books");
+        return authorFields;
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Atualizar um autor existente", description = "Atualiza os detalhes de um autor específico")
     public ResponseEntity<?> updateAuthor(@PathVariable String id, @RequestBody AuthorRequest authorRequest) {
@@ -100,15 +394,26 @@ public class AuthorController {
         }
 
         Author author = existingAuthor.get();
+        String previousNationality = author.getNationality();
         author.setName(authorRequest.getName());
         author.setBirthDate(authorRequest.getBirthDate());
         author.setNationality(authorRequest.getNationality());
 
-        Author savedAuthor = authorRepository.save(author);
+        Author savedAuthor;
+        try {
+            savedAuthor = authorRepository.save(author);
+        } catch (OptimisticLockingFailureException e) {
+            // Outra requisição gravou o autor depois da leitura: o cliente deve reler e tentar de novo
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Erro: O autor foi alterado por outra requisição. Tente novamente.");
+        }
+        responseCache.evict(JsonResponseCache.authorKey(id));
+        catalogStatsService.authorUpdated(previousNationality, savedAuthor);
+        changeCounterRepository.increment(ChangeCounter.AUTHORS);
         return ResponseEntity.ok(savedAuthor);
     }
 
     @DeleteMapping("/{id}")
+    @Durability(DurabilityProfile.SAFE)
     @Operation(summary = "Deletar um autor", description = "Remove um autor específico do banco de dados e seus livros associados")
     public ResponseEntity<Void> deleteAuthor(@PathVariable String id) {
         Optional<Author> author = authorRepository.findById(id);
@@ -121,6 +426,16 @@ public class AuthorController {
 
             // Remove o autor
             authorRepository.delete(author.get());
+            responseCache.evict(JsonResponseCache.authorKey(id));
+            for (Book book : books) {
+                responseCache.evict(JsonResponseCache.bookKey(book.getId()));
+            }
+            catalogStatsService.authorDeleted(author.get(), books);
+            changeCounterRepository.increment(ChangeCounter.AUTHORS);
+            if (!books.isEmpty()) {
+                changeCounterRepository.increment(ChangeCounter.BOOKS);
+            }
+            changeCounterRepository.deleteById(ChangeCounter.authorBooks(id));
             return ResponseEntity.ok().build(); // Retorna 200 OK após deletar
         } else {
             return ResponseEntity.notFound().build(); // Retorna 404 se o autor não for encontrado
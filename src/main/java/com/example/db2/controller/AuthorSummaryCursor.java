@@ -0,0 +1,46 @@
+package com.example.db2.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+import com.example.db2.dto.AuthorSummary;
+
+// Cursor opaco da listagem de autores com contagem de livros: guarda a ordenação, a contagem e
+// o ID do último autor entregue, codificados em Base64 URL-safe
+final class AuthorSummaryCursor {
+
+    static final String BY_BOOK_COUNT = "bookCount";
+    static final String BY_ID = "id";
+    static final Set<String> SORT_FIELDS = Set.of(BY_BOOK_COUNT, BY_ID);
+
+    private final long bookCount;
+    private final String id;
+
+    private AuthorSummaryCursor(long bookCount, String id) {
+        this.bookCount = bookCount;
+        this.id = id;
+    }
+
+    long getBookCount() {
+        return bookCount;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    static String encode(String sort, AuthorSummary last) {
+        String raw = sort + "|" + last.getBookCount() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Lança IllegalArgumentException se o cursor for inválido ou gerado para outra ordenação
+    static AuthorSummaryCursor decode(String sort, String cursor) {
+        String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length != 3 || !parts[0].equals(sort) || parts[2].isEmpty()) {
+            throw new IllegalArgumentException("cursor inválido");
+        }
+        return new AuthorSummaryCursor(Long.parseLong(parts[1]), parts[2]);
+    }
+}
@@ -1,20 +1,53 @@
 package com.example.db2.controller;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Range.Bound;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import com.example.db2.cache.CachedJson;
+import com.example.db2.cache.JsonResponseCache;
 import com.example.db2.model.Book;
+import com.example.db2.dto.BookBulkError;
+import com.example.db2.dto.BookBulkItem;
+import com.example.db2.dto.BookBulkResponse;
+import com.example.db2.dto.BookHistogramBucket;
 import com.example.db2.dto.BookRequest;
+import com.example.db2.durability.Durability;
+import com.example.db2.durability.DurabilityProfile;
 import com.example.db2.model.Author;
+import com.example.db2.model.ChangeCounter;
+import com.example.db2.repository.BookBulkResult;
+import com.example.db2.repository.BookQuery;
 import com.example.db2.repository.BookRepository;
+import com.example.db2.repository.ChangeCounterRepository;
+import com.example.db2.repository.EntityVersion;
 import com.example.db2.repository.AuthorRepository;
+import com.example.db2.service.CatalogStatsService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -24,16 +57,120 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Livros", description = "Endpoints para operações CRUD de livros")
 public class BookController {
 
+    private static final int MAX_BULK_SIZE = 10000;
+    private static final int MAX_FILTER_LIMIT = 1000;
+    private static final String QUERY_INDEX_HEADER = "X-Query-Index";
+
+    // Acima disso, filtros que não usam índice são rejeitados
+    @Value("${catalog.books.filter.max-scanned-books:10000}")
+    private long maxScannedBooks;
+
     @Autowired
     private BookRepository bookRepository;
 
     @Autowired
     private AuthorRepository authorRepository;
 
+    @Autowired
+    private CatalogStatsService catalogStatsService;
+
+    @Autowired
+    private ChangeCounterRepository changeCounterRepository;
+
+    @Autowired
+    private JsonResponseCache responseCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
-    @Operation(summary = "Listar todos os livros", description = "Retorna uma lista de todos os livros")
-    public List<Book> getAllBooks() {
-        return bookRepository.findAll();
+    @Operation(summary = "Listar ou filtrar livros", description = "Sem filtros, retorna todos os livros. Com authorId, genre, isbn, titlePrefix e/ou publishedFrom/publishedTo, retorna até limit livros que atendem a todos os filtros. Quando algum índice seletivo atende ao filtro, ele é usado e informado no cabeçalho X-Query-Index; caso contrário o cabeçalho traz NONE, o banco escolhe o plano e, em coleções grandes, a busca é rejeitada. genre e um titlePrefix vazio não bastam para tornar o filtro seletivo. Suporta If-None-Match com o ETag da última listagem")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Livros retornados com sucesso"),
+            @ApiResponse(responseCode = "304", description = "Livros inalterados desde o ETag informado"),
+            @ApiResponse(responseCode = "400", description = "Campo, período ou limite inválido, ou filtro sem índice em uma coleção grande")
+    })
+    public ResponseEntity<?> getAllBooks(
+            @Parameter(description = "Campos a retornar, separados por vírgula (ex.: title,isbn)") @RequestParam(required = false) String fields,
+            @Parameter(description = "ID do autor") @RequestParam(required = false) String authorId,
+            @Parameter(description = "Gênero do livro (pouco seletivo; combine com outro filtro em coleções grandes)") @RequestParam(required = false) String genre,
+            @Parameter(description = "ISBN do livro") @RequestParam(required = false) String isbn,
+            @Parameter(description = "Início do título") @RequestParam(required = false) String titlePrefix,
+            @Parameter(description = "Data de publicação inicial, inclusive (formato: yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate publishedFrom,
+            @Parameter(description = "Data de publicação final, inclusive (formato: yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate publishedTo,
+            @Parameter(description = "Quantidade máxima de livros retornados pelo filtro") @RequestParam(defaultValue = "100") int limit,
+            WebRequest request) {
+        Set<String> selectedFields = FieldSelection.parse(fields);
+        String invalidField = FieldSelection.firstInvalid(selectedFields, FieldSelection.BOOK_FIELDS);
+        if (invalidField != null) {
+            return ResponseEntity.badRequest().body("Erro: Campo inválido: " + invalidField + ".");
+        }
+
+        BookQuery query = new BookQuery(authorId, genre, isbn, titlePrefix, publishedFrom, publishedTo);
+        String index = null;
+        if (!query.isEmpty()) {
+            if (publishedFrom != null && publishedTo != null && publishedFrom.isAfter(publishedTo)) {
+                return ResponseEntity.badRequest().body("Erro: A data inicial deve ser anterior à data final.");
+            }
+            if (limit < 1 || limit > MAX_FILTER_LIMIT) {
+                return ResponseEntity.badRequest().body("Erro: limit deve estar entre 1 e " + MAX_FILTER_LIMIT + ".");
+            }
+            // Sem um índice seletivo a busca percorre a coleção inteira (ou quase, no caso de genre), o
+            // que só é aceito em coleções pequenas; nesse caso nenhum hint é enviado
+            index = bookRepository.findIndexFor(query).orElse(null);
+            if (index == null && bookRepository.estimateCount() > maxScannedBooks) {
+                return ResponseEntity.badRequest().body("Erro: Nenhum índice seletivo atende a esta combinação de filtros. Inclua authorId, isbn, titlePrefix ou o período de publicação.");
+            }
+        }
+
+        // O ETag da lista é o contador de alterações da coleção, lido sem percorrer os livros
+        if (request.checkNotModified(ETags.of(changeCounterRepository.currentValue(ChangeCounter.BOOKS)))) {
+            return null; // Retorna 304 se a lista não mudou
+        }
+        if (query.isEmpty()) {
+            if (selectedFields == null) {
+                return ResponseEntity.ok(bookRepository.findAll());
+            }
+            return ResponseEntity.ok(FieldSelection.apply(bookRepository.findAllWithFields(selectedFields), selectedFields, null));
+        }
+
+        List<Book> books = bookRepository.findByQuery(query, index, limit, selectedFields);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().header(QUERY_INDEX_HEADER, index != null ? index : "NONE");
+        if (selectedFields == null) {
+            return response.body(books);
+        }
+        return response.body(FieldSelection.apply(books, selectedFields, null));
+    }
+
+    @Operation(summary = "Listar livros por período de publicação", description = "Retorna, de forma paginada, os livros publicados entre as datas informadas (inclusive). Ao menos uma das datas deve ser fornecida")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de livros retornada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Nenhuma data informada ou período inválido")
+    })
+    @GetMapping("/published")
+    public ResponseEntity<?> getBooksByPublicationDate(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @PageableDefault(size = 20, sort = "publicationDate", direction = Sort.Direction.ASC) Pageable pageable) {
+        if (from == null && to == null) {
+            return ResponseEntity.badRequest().body("Erro: Informe ao menos uma das datas (from ou to).");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().body("Erro: A data inicial deve ser anterior à data final.");
+        }
+
+        Range<LocalDate> period = Range.of(
+                from != null ? Bound.inclusive(from) : Bound.unbounded(),
+                to != null ? Bound.inclusive(to) : Bound.unbounded());
+        return ResponseEntity.ok(new PagedModel<>(bookRepository.findByPublicationDateBetween(period, pageable)));
+    }
+
+    @Operation(summary = "Histograma de livros por ano e gênero", description = "Retorna a quantidade de livros publicados por ano e gênero, calculada no banco de dados. As datas são opcionais")
+    @GetMapping("/histogram")
+    public List<BookHistogramBucket> getPublicationHistogram(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return bookRepository.countByPublicationYearAndGenre(from, to);
     }
     
     @Operation(summary = "Criar um novo livro", description = "Adiciona um novo livro ao banco de dados. O ID do autor e o nome do livro devem ser fornecidos")
@@ -62,32 +199,167 @@ public class BookController {
             book.setGenre(bookRequest.getGenre()); // Novo atributo
             book.setIsbn(bookRequest.getIsbn()); // Novo atributo
             Book savedBook = bookRepository.save(book);
+            responseCache.evict(JsonResponseCache.authorKey(savedBook.getAuthorId()));
+            catalogStatsService.bookCreated(savedBook);
+            changeCounterRepository.increment(ChangeCounter.BOOKS);
+            changeCounterRepository.increment(ChangeCounter.authorBooks(savedBook.getAuthorId()));
             return ResponseEntity.ok(savedBook);
         } else {
             return ResponseEntity.badRequest().body("Erro: Autor não encontrado.");
         }
     }
 
-    @Operation(summary = "Obter livro por ID", description = "Retorna os detalhes de um livro específico com base no ID fornecido.")
+    @Operation(summary = "Obter livro por ID", description = "Retorna os detalhes de um livro específico com base no ID fornecido. Suporta If-None-Match com o ETag da última leitura")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Livro encontrado com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Campo inválido em fields"),
+            @ApiResponse(responseCode = "304", description = "Livro inalterado desde o ETag informado"),
             @ApiResponse(responseCode = "404", description = "Livro não encontrado com o ID fornecido")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<Book> getBookById(@PathVariable String id) {
-        Optional<Book> book = bookRepository.findById(id);
+    public ResponseEntity<?> getBookById(
+            @PathVariable String id,
+            @Parameter(description = "Campos a retornar, separados por vírgula (ex.: title,isbn)") @RequestParam(required = false) String fields,
+            WebRequest request) throws JsonProcessingException {
+        Set<String> selectedFields = FieldSelection.parse(fields);
+        String invalidField = FieldSelection.firstInvalid(selectedFields, FieldSelection.BOOK_FIELDS);
+        if (invalidField != null) {
+            return ResponseEntity.badRequest().body("Erro: Campo inválido: " + invalidField + ".");
+        }
+
+        if (selectedFields == null) {
+            return getCachedBook(id, request);
+        }
+
+        // Na revalidação apenas a versão é lida do banco
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Optional<EntityVersion> version = bookRepository.findVersionById(id);
+            if (version.isPresent() && request.checkNotModified(ETags.of(version.get().getVersion()))) {
+                return null; // Retorna 304 sem carregar o livro
+            }
+        }
+
+        Optional<Book> book = bookRepository.findByIdWithFields(id, selectedFields);
         if (book.isPresent()) {
-            return ResponseEntity.ok(book.get());
+            if (request.checkNotModified(ETags.of(book.get().getVersion()))) {
+                return null;
+            }
+            return ResponseEntity.ok(FieldSelection.apply(book.get(), selectedFields, null));
         } else {
             return ResponseEntity.notFound().build(); // Retorna 404 se não encontrado
         }
     }
 
+    // A resposta completa vem do cache de JSON já serializado; apenas a versão é lida do banco
+    // para validar a entrada, e o livro só é carregado e serializado quando ela não existe
+    private ResponseEntity<?> getCachedBook(String id, WebRequest request) throws JsonProcessingException {
+        Optional<EntityVersion> version = bookRepository.findVersionById(id);
+        if (!version.isPresent()) {
+            return ResponseEntity.notFound().build(); // Retorna 404 se não encontrado
+        }
+        String etag = ETags.of(version.get().getVersion());
+        if (request.checkNotModified(CachedResponses.etag(etag, request, responseCache))) {
+            return null; // Retorna 304 sem carregar o livro
+        }
+
+        String key = JsonResponseCache.bookKey(id);
+        CachedJson cached = responseCache.get(key, etag);
+        if (cached == null) {
+            Optional<Book> book = bookRepository.findById(id);
+            if (!book.isPresent()) {
+                return ResponseEntity.notFound().build();
+            }
+            cached = responseCache.put(key, ETags.of(book.get().getVersion()), objectMapper.writeValueAsBytes(book.get()));
+        }
+        return CachedResponses.of(cached, request);
+    }
+
+    @Operation(summary = "Atualizar ou inserir livros em lote", description = "Aplica atualizações parciais (apenas os campos informados) ou upserts, localizando cada livro pelo id ou pelo ISBN. Os autores referenciados são validados em uma única consulta e todas as escritas são enviadas em uma única operação em lote não ordenada. Itens inválidos ou que falharem são listados em errors, sem impedir os demais")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote processado; contagens e erros por item retornados"),
+            @ApiResponse(responseCode = "400", description = "Lote vazio ou maior que o limite")
+    })
+    @PutMapping("/bulk")
+    @Durability(DurabilityProfile.FAST) // Carga noturna: reprocessável, a latência importa mais
+    public ResponseEntity<?> bulkUpdateBooks(@RequestBody List<BookBulkItem> items) {
+        if (items.isEmpty() || items.size() > MAX_BULK_SIZE) {
+            return ResponseEntity.badRequest().body("Erro: O lote deve conter entre 1 e " + MAX_BULK_SIZE + " itens.");
+        }
+
+        // Valida todos os autores referenciados com uma única consulta ($in)
+        Set<String> authorIds = new HashSet<>();
+        for (BookBulkItem item : items) {
+            if (item != null && item.getAuthorId() != null) {
+                authorIds.add(item.getAuthorId());
+            }
+        }
+        Set<String> existingAuthorIds = new HashSet<>();
+        authorRepository.findAllById(authorIds).forEach(author -> existingAuthorIds.add(author.getId()));
+
+        List<BookBulkError> errors = new ArrayList<>();
+        List<BookBulkItem> validItems = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>(); // Posição original de cada item válido
+        for (int index = 0; index < items.size(); index++) {
+            String error = validateBulkItem(items.get(index), existingAuthorIds);
+            if (error != null) {
+                errors.add(new BookBulkError(index, error));
+            } else {
+                validItems.add(items.get(index));
+                positions.add(index);
+            }
+        }
+
+        BookBulkResult result = bookRepository.bulkUpdate(validItems);
+        BookBulkResponse response = result.response();
+        // Inserções por ISBN não têm o id conhecido aqui, mas também não têm entrada no cache
+        Set<String> changedAuthors = new HashSet<>();
+        for (BookBulkResult.Change change : result.changes()) {
+            if (change.id() != null) {
+                responseCache.evict(JsonResponseCache.bookKey(change.id()));
+            }
+            for (String authorId : new String[] { change.previousAuthorId(), change.authorId() }) {
+                if (authorId != null && changedAuthors.add(ChangeCounter.authorBooks(authorId))) {
+                    responseCache.evict(JsonResponseCache.authorKey(authorId));
+                }
+            }
+        }
+        for (BookBulkError error : response.getErrors()) {
+            errors.add(new BookBulkError(positions.get(error.getIndex()), error.getMessage()));
+        }
+        errors.sort(Comparator.comparingInt(BookBulkError::getIndex));
+        response.setErrors(errors);
+
+        if (!result.changes().isEmpty()) {
+            // Os contadores recebem um único $inc agregado por chave para o lote inteiro
+            catalogStatsService.booksChanged(result.changes());
+            changeCounterRepository.increment(ChangeCounter.BOOKS);
+            changeCounterRepository.incrementAll(changedAuthors);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    private static String validateBulkItem(BookBulkItem item, Set<String> existingAuthorIds) {
+        if (item == null || (item.getId() == null && item.getIsbn() == null)) {
+            return "Erro: Informe o id ou o ISBN do livro.";
+        }
+        if (item.getTitle() != null && item.getTitle().trim().isEmpty()) {
+            return "Erro: O nome do livro não pode ser vazio.";
+        }
+        if (item.isUpsert() && (item.getTitle() == null || item.getAuthorId() == null)) {
+            return "Erro: O nome do livro e o ID do autor são obrigatórios para inserir um livro.";
+        }
+        if (item.getAuthorId() != null && !existingAuthorIds.contains(item.getAuthorId())) {
+            return "Erro: Autor não encontrado.";
+        }
+        return null;
+    }
+
     @Operation(summary = "Atualizar um livro existente", description = "Atualiza as informações de um livro existente com base no ID fornecido.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Livro atualizado com sucesso"),
             @ApiResponse(responseCode = "404", description = "Livro não encontrado"),
-            @ApiResponse(responseCode = "400", description = "Dados inválidos fornecidos para atualização do livro")
+            @ApiResponse(responseCode = "400", description = "Dados inválidos fornecidos para atualização do livro"),
+            @ApiResponse(responseCode = "409", description = "O livro foi alterado por outra requisição")
     })
     @PutMapping("/{id}")
     public ResponseEntity<?> updateBook(@PathVariable String id, @RequestBody BookRequest bookRequest) {
@@ -112,25 +384,53 @@ public class BookController {
         }
 
         Book book = existingBook.get();
+        String previousAuthorId = book.getAuthorId();
+        String previousGenre = book.getGenre();
         book.setTitle(bookRequest.getTitle());
         book.setAuthorId(author.get().getId());
         book.setPublicationDate(bookRequest.getPublicationDate()); // Novo atributo
         book.setGenre(bookRequest.getGenre()); // Novo atributo
         book.setIsbn(bookRequest.getIsbn()); // Novo atributo
-        Book updatedBook = bookRepository.save(book);
+        Book updatedBook;
+        try {
+            updatedBook = bookRepository.save(book);
+        } catch (OptimisticLockingFailureException e) {
+            // Outra requisição gravou o livro depois da leitura: o cliente deve reler e tentar de novo
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Erro: O livro foi alterado por outra requisição. Tente novamente.");
+        }
+        responseCache.evict(JsonResponseCache.bookKey(id));
+        responseCache.evict(JsonResponseCache.authorKey(previousAuthorId));
+        responseCache.evict(JsonResponseCache.authorKey(updatedBook.getAuthorId()));
+        catalogStatsService.bookUpdated(previousAuthorId, previousGenre, updatedBook);
+        changeCounterRepository.increment(ChangeCounter.BOOKS);
+        changeCounterRepository.increment(ChangeCounter.authorBooks(updatedBook.getAuthorId()));
+        if (previousAuthorId != null && !updatedBook.getAuthorId().equals(previousAuthorId)) {
+            changeCounterRepository.increment(ChangeCounter.authorBooks(previousAuthorId));
+        }
         return ResponseEntity.ok(updatedBook);
     }
 
     @Operation(summary = "Deletar um livro", description = "Remove um livro do banco de dados com base no ID fornecido.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Livro deletado com sucesso"),
-            @ApiResponse(responseCode = "404", description = "Livro não encontrado")
+            @ApiResponse(responseCode = "404", description = "Livro não encontrado"),
+            @ApiResponse(responseCode = "409", description = "O livro foi alterado ou removido por outra requisição")
     })
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteBook(@PathVariable String id) {
+    @Durability(DurabilityProfile.SAFE)
+    public ResponseEntity<?> deleteBook(@PathVariable String id) {
         Optional<Book> book = bookRepository.findById(id);
         if (book.isPresent()) {
-            bookRepository.delete(book.get());
+            try {
+                bookRepository.delete(book.get());
+            } catch (OptimisticLockingFailureException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("Erro: O livro foi alterado ou removido por outra requisição. Tente novamente.");
+            }
+            responseCache.evict(JsonResponseCache.bookKey(id));
+            responseCache.evict(JsonResponseCache.authorKey(book.get().getAuthorId()));
+            catalogStatsService.bookDeleted(book.get());
+            changeCounterRepository.increment(ChangeCounter.BOOKS);
+            changeCounterRepository.increment(ChangeCounter.authorBooks(book.get().getAuthorId()));
             return ResponseEntity.ok().build(); // Retorna 200 OK após deletar
         } else {
             return ResponseEntity.notFound().build(); // Retorna 404 se o livro não for encontrado
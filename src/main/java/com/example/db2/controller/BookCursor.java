@@ -0,0 +1,63 @@
+package com.example.db2.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Set;
+
+import com.example.db2.model.Book;
+
+// Cursor opaco da paginação dos livros de um autor: guarda o campo de ordenação, o valor desse
+// campo e o ID do último livro entregue, codificados em Base64 URL-safe
+final class BookCursor {
+
+    static final Set<String> SORT_FIELDS = Set.of("publicationDate", "title");
+
+    private final Object value;
+    private final String id;
+
+    private BookCursor(Object value, String id) {
+        this.value = value;
+        this.id = id;
+    }
+
+    Object getValue() {
+        return value;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    static String encode(String sortField, Book last) {
+        Object value = "title".equals(sortField) ? last.getTitle() : last.getPublicationDate();
+        // "n" marca valor nulo e "v" precede o valor presente, para não confundir nulo com vazio
+        String raw = sortField + "|" + (value == null ? "n" : "v" + value) + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Lança IllegalArgumentException se o cursor for inválido ou gerado para outra ordenação
+    static BookCursor decode(String sortField, String cursor) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int first = raw.indexOf('|');
+        int last = raw.lastIndexOf('|');
+        if (first < 0 || first == last || !raw.substring(0, first).equals(sortField)) {
+            throw new IllegalArgumentException("cursor inválido");
+        }
+
+        String encodedValue = raw.substring(first + 1, last);
+        String id = raw.substring(last + 1);
+        if (encodedValue.isEmpty() || id.isEmpty()) {
+            throw new IllegalArgumentException("cursor inválido");
+        }
+
+        Object value = null;
+        if (encodedValue.charAt(0) == 'v') {
+            String text = encodedValue.substring(1);
+            value = "title".equals(sortField) ? text : LocalDate.parse(text);
+        } else if (!encodedValue.equals("n")) {
+            throw new IllegalArgumentException("cursor inválido");
+        }
+        return new BookCursor(value, id);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.db2.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import com.example.db2.cache.CachedJson;
+import com.example.db2.cache.JsonResponseCache;
+
+// Escreve uma resposta do JsonResponseCache como bytes, sem conversão pelo Jackson, usando a forma
+// compactada quando o cliente aceita gzip
+final class CachedResponses {
+
+    private static final String GZIP_ETAG_SUFFIX = "-gz";
+
+    private CachedResponses() {
+    }
+
+    // ETag da representação negociada. O corpo compactado tem outros bytes, então recebe um ETag
+    // forte próprio ("3" vira "3-gz"); é ele que deve ser passado a checkNotModified. A versão
+    // sem sufixo continua validando a entrada do cache
+    static String etag(String version, WebRequest request, JsonResponseCache cache) {
+        if (!cache.isGzip() || !acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return version;
+        }
+        return version.substring(0, version.length() - 1) + GZIP_ETAG_SUFFIX + "\"";
+    }
+
+    static ResponseEntity<byte[]> of(CachedJson cached, WebRequest request) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (cached.gzip() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.gzip());
+        }
+        return response.body(cached.json());
+    }
+
+    // Segue os pesos do Accept-Encoding: "gzip;q=0" recusa o gzip, e "*" vale apenas quando o gzip
+    // não é citado
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipWeight = null;
+        Double wildcardWeight = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim();
+            double weight = 1;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        weight = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        weight = 0; // Peso inválido: a codificação é ignorada
+                    }
+                }
+            }
+            if (name.equalsIgnoreCase("gzip")) {
+                gzipWeight = weight;
+            } else if (name.equals("*")) {
+                wildcardWeight = weight;
+            }
+        }
+        if (gzipWeight != null) {
+            return gzipWeight > 0;
+        }
+        return wildcardWeight != null && wildcardWeight > 0;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.db2.controller;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.dataloader.DataLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.GraphQlExceptionHandler;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.stereotype.Controller;
+
+import com.example.db2.model.Author;
+import com.example.db2.model.Book;
+import com.example.db2.repository.AuthorRepository;
+import com.example.db2.repository.BookRepository;
+
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.schema.DataFetchingEnvironment;
+import jakarta.annotation.PostConstruct;
+import reactor.core.publisher.Mono;
+
+// Resolvers do endpoint /graphql. As arestas entre autores e livros são carregadas em lote: o Spring
+// cria DataLoaders por requisição, que agrupam os nós de um mesmo nível e fazem cache por chave,
+// de modo que cada nível custa uma única consulta com $in
+@Controller
+public class CatalogGraphQlController {
+
+    private static final int MAX_LIMIT = 1000;
+    private static final String AUTHOR_BOOKS_LOADER = "authorBooks";
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BatchLoaderRegistry batchLoaderRegistry;
+
+    // Author.books recebe limit, que o @BatchMapping não repassa; a chave do DataLoader leva o
+    // limit junto com o ID do autor
+    private record AuthorBooksKey(String authorId, int limit) {
+    }
+
+    @PostConstruct
+    public void registerBatchLoaders() {
+        batchLoaderRegistry.<AuthorBooksKey, List<Book>>forName(AUTHOR_BOOKS_LOADER)
+                .registerMappedBatchLoader((keys, environment) -> Mono.fromCallable(() -> loadAuthorBooks(keys)));
+    }
+
+    @QueryMapping
+    public List<Book> books(@Argument String genre, @Argument Integer limit) {
+        PageRequest page = PageRequest.of(0, limitOf(limit));
+        return genre == null ? bookRepository.findAll(page).getContent() : bookRepository.findByGenre(genre, page);
+    }
+
+    @QueryMapping
+    public Book book(@Argument String id) {
+        return bookRepository.findById(id).orElse(null);
+    }
+
+    @QueryMapping
+    public List<Author> authors(@Argument String nationality, @Argument Integer limit) {
+        PageRequest page = PageRequest.of(0, limitOf(limit));
+        return nationality == null
+                ? authorRepository.findAll(page).getContent()
+                : authorRepository.findByNationality(nationality, page);
+    }
+
+    @QueryMapping
+    public Author author(@Argument String id) {
+        return authorRepository.findById(id).orElse(null);
+    }
+
+    // Retorna os autores na mesma ordem dos livros recebidos (null quando o autor não existe)
+    @BatchMapping(typeName = "Book", field = "author")
+    public List<Author> bookAuthors(List<Book> books) {
+        Set<String> authorIds = books.stream()
+                .map(Book::getAuthorId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<String, Author> authorsById = new HashMap<>();
+        authorRepository.findAllById(authorIds).forEach(author -> authorsById.put(author.getId(), author));
+        return books.stream()
+                .map(book -> book.getAuthorId() != null ? authorsById.get(book.getAuthorId()) : null)
+                .toList();
+    }
+
+    @SchemaMapping(typeName = "Author", field = "books")
+    public CompletableFuture<List<Book>> authorBooks(Author author, @Argument Integer limit,
+            DataFetchingEnvironment environment) {
+        DataLoader<AuthorBooksKey, List<Book>> loader = environment.getDataLoader(AUTHOR_BOOKS_LOADER);
+        return loader.load(new AuthorBooksKey(author.getId(), limitOf(limit)));
+    }
+
+    @GraphQlExceptionHandler
+    public GraphQLError handleInvalidArgument(IllegalArgumentException e, DataFetchingEnvironment environment) {
+        return GraphqlErrorBuilder.newError(environment)
+                .errorType(ErrorType.BAD_REQUEST)
+                .message(e.getMessage())
+                .build();
+    }
+
+    // Os autores de um mesmo nível normalmente pedem o mesmo limit, e cada limit distinto custa
+    // uma consulta; o limite por autor é aplicado no banco
+    private Map<AuthorBooksKey, List<Book>> loadAuthorBooks(Set<AuthorBooksKey> keys) {
+        Map<AuthorBooksKey, List<Book>> result = new HashMap<>();
+        keys.stream().collect(Collectors.groupingBy(AuthorBooksKey::limit)).forEach((limit, sameLimit) -> {
+            Set<String> authorIds = sameLimit.stream().map(AuthorBooksKey::authorId).collect(Collectors.toSet());
+            Map<String, List<Book>> booksByAuthor = bookRepository.findFirstByAuthorIds(authorIds, limit)
+                    .stream()
+                    .collect(Collectors.groupingBy(Book::getAuthorId));
+            sameLimit.forEach(key -> result.put(key, booksByAuthor.getOrDefault(key.authorId(), List.of())));
+        });
+        return result;
+    }
+
+    // limit nulo só chega aqui quando o cliente envia null explicitamente
+    private static int limitOf(Integer limit) {
+        if (limit == null || limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit deve estar entre 1 e " + MAX_LIMIT);
+        }
+        return limit;
+    }
+}
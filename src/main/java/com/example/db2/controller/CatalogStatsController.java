@@ -0,0 +1,35 @@
+package com.example.db2.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.db2.dto.CatalogStatsResponse;
+import com.example.db2.service.CatalogStatsService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/stats")
+@Tag(name = "Estatísticas", description = "Contadores do catálogo mantidos incrementalmente")
+public class CatalogStatsController {
+
+    @Autowired
+    private CatalogStatsService catalogStatsService;
+
+    @GetMapping
+    @Operation(summary = "Obter estatísticas do catálogo", description = "Retorna a quantidade de livros por gênero, autores por nacionalidade e livros por autor")
+    public CatalogStatsResponse getStats() {
+        return catalogStatsService.getStats();
+    }
+
+    @PostMapping("/reconcile")
+    @Operation(summary = "Reconciliar estatísticas", description = "Recalcula os contadores a partir das coleções de livros e autores")
+    public CatalogStatsResponse reconcile() {
+        catalogStatsService.reconcile();
+        return catalogStatsService.getStats();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.db2.controller;
+
+// ETags fortes montados a partir de versões de documentos e contadores de alteração
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Object... parts) {
+        StringBuilder etag = new StringBuilder("\"");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                etag.append('-');
+            }
+            etag.append(parts[i]);
+        }
+        return etag.append('"').toString();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.db2.controller;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+// Seleção de campos (parâmetros fields/bookFields). Os campos pedidos são enviados ao Mongo como
+// projeção e, na serialização, os filtros do Jackson omitem todos os demais
+final class FieldSelection {
+
+    static final String BOOK_FILTER = "bookFields";
+    static final String AUTHOR_FILTER = "authorFields";
+
+    static final Set<String> BOOK_FIELDS = Set.of("id", "title", "authorId", "publicationDate", "genre", "isbn", "version");
+    static final Set<String> AUTHOR_FIELDS = Set.of("id", "name", "birthDate", "nationality", "books");
+
+    private FieldSelection() {
+    }
+
+    // Retorna null quando nenhum campo foi pedido, ou seja, o documento completo
+    static Set<String> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .forEach(selected::add);
+        return selected;
+    }
+
+    static String firstInvalid(Set<String> selected, Set<String> allowed) {
+        if (selected == null) {
+            return null;
+        }
+        return selected.stream().filter(field -> !allowed.contains(field)).findFirst().orElse(null);
+    }
+
+    static MappingJacksonValue apply(Object body, Set<String> bookFields, Set<String> authorFields) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(filters(bookFields, authorFields));
+        return value;
+    }
+
+    static SimpleFilterProvider filters(Set<String> bookFields, Set<String> authorFields) {
+        SimpleFilterProvider filters = new SimpleFilterProvider().setFailOnUnknownId(false);
+        if (bookFields != null) {
+            filters.addFilter(BOOK_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(bookFields));
+        }
+        if (authorFields != null) {
+            // O cursor da próxima página de livros acompanha a resposta independentemente da seleção
+            Set<String> visible = new HashSet<>(authorFields);
+            visible.add("booksNextCursor");
+            filters.addFilter(AUTHOR_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(visible));
+        }
+        return filters;
+    }
+}
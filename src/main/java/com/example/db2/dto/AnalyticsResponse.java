@@ -0,0 +1,15 @@
+package com.example.db2.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AnalyticsResponse {
+    private long total;
+    private Map<String, Long> groups;   // Presente apenas quando há agrupamento
+    private Instant snapshotTakenAt;
+}
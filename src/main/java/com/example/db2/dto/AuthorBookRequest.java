@@ -1,6 +1,8 @@
 package com.example.db2.dto;
 
 import com.example.db2.model.Book;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 import lombok.Data;
 
@@ -8,12 +10,15 @@ import java.util.List;
 import java.time.LocalDate;
 
 @Data
+@JsonFilter("authorFields")
 public class AuthorBookRequest {
     private String id;
     private String name;
     private LocalDate birthDate;
     private String nationality;
     private List<Book> books;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String booksNextCursor; // Presente apenas na paginação dos livros, quando há uma próxima página
 
     public AuthorBookRequest(String id, String name, LocalDate birthDate, String nationality, List<Book> books) {
         this.id = id;
@@ -0,0 +1,20 @@
+package com.example.db2.dto;
+
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AuthorSummary {
+    private String id;
+    private String name;
+    private LocalDate birthDate;
+    private String nationality;
+    private long bookCount;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDate latestPublicationDate; // Presente apenas quando solicitada
+}
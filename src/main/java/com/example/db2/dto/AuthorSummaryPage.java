@@ -0,0 +1,16 @@
+package com.example.db2.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AuthorSummaryPage {
+    private List<AuthorSummary> authors;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor; // Nulo na última página
+}
@@ -0,0 +1,11 @@
+package com.example.db2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BookBulkError {
+    private int index;      // Posição do item na requisição
+    private String message;
+}
@@ -0,0 +1,48 @@
+package com.example.db2.dto;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+import com.example.db2.model.Book;
+
+import lombok.Data;
+
+// Item de PUT /api/books/bulk. O livro é localizado pelo id ou, na falta dele, pelo ISBN; apenas
+// os campos informados são alterados. Com upsert, o livro é criado quando não existe
+@Data
+public class BookBulkItem {
+    private String id;
+    private String isbn;
+    private String title;
+    private String authorId;
+    private LocalDate publicationDate;
+    private String genre;
+    private boolean upsert;
+
+    // Copia para o livro os campos informados e indica se algum valor mudou
+    public boolean applyTo(Book book) {
+        boolean changed = false;
+        if (title != null && !title.equals(book.getTitle())) {
+            book.setTitle(title);
+            changed = true;
+        }
+        if (authorId != null && !authorId.equals(book.getAuthorId())) {
+            book.setAuthorId(authorId);
+            changed = true;
+        }
+        if (publicationDate != null && !publicationDate.equals(book.getPublicationDate())) {
+            book.setPublicationDate(publicationDate);
+            changed = true;
+        }
+        if (genre != null && !genre.equals(book.getGenre())) {
+            book.setGenre(genre);
+            changed = true;
+        }
+        // O ISBN só é alterado quando o livro foi localizado pelo id
+        if (id != null && isbn != null && !Objects.equals(isbn, book.getIsbn())) {
+            book.setIsbn(isbn);
+            changed = true;
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.db2.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BookBulkResponse {
+    private long matched;
+    private long modified;
+    private long upserted;
+    private List<BookBulkError> errors;
+}
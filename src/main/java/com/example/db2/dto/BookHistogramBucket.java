@@ -0,0 +1,12 @@
+package com.example.db2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BookHistogramBucket {
+    private int year;
+    private String genre;
+    private long count;
+}
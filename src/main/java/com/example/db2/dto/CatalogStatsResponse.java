@@ -0,0 +1,14 @@
+package com.example.db2.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CatalogStatsResponse {
+    private Map<String, Long> booksByGenre;
+    private Map<String, Long> authorsByNationality;
+    private Map<String, Long> booksByAuthor;
+}
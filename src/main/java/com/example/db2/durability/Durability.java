@@ -0,0 +1,13 @@
+package com.example.db2.durability;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Perfil de durabilidade padrão de um endpoint; o cabeçalho X-Durability-Profile tem precedência
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Durability {
+    DurabilityProfile value();
+}
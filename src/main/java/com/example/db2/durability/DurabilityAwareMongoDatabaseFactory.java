@@ -0,0 +1,22 @@
+package com.example.db2.durability;
+
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoDatabase;
+
+// O MongoTemplate obtém o banco desta fábrica a cada operação, então o write concern e o read
+// concern do perfil atual valem para todas as escritas e leituras, inclusive as em lote
+public class DurabilityAwareMongoDatabaseFactory extends SimpleMongoClientDatabaseFactory {
+
+    public DurabilityAwareMongoDatabaseFactory(MongoClient mongoClient, String databaseName) {
+        super(mongoClient, databaseName);
+    }
+
+    @Override
+    protected MongoDatabase doGetMongoDatabase(String dbName) {
+        MongoDatabase database = super.doGetMongoDatabase(dbName);
+        DurabilityProfile profile = DurabilityContext.current();
+        return profile == null ? database : profile.applyTo(database);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.db2.durability;
+
+import java.util.function.Supplier;
+
+// Perfil de durabilidade da operação em andamento na thread atual
+public final class DurabilityContext {
+
+    private static final ThreadLocal<DurabilityProfile> CURRENT = new ThreadLocal<>();
+
+    private DurabilityContext() {
+    }
+
+    // Retorna null quando nenhum perfil foi selecionado
+    public static DurabilityProfile current() {
+        return CURRENT.get();
+    }
+
+    public static void set(DurabilityProfile profile) {
+        CURRENT.set(profile);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    // Executa a ação com o perfil informado, restaurando o anterior ao final
+    public static <T> T with(DurabilityProfile profile, Supplier<T> action) {
+        DurabilityProfile previous = CURRENT.get();
+        CURRENT.set(profile);
+        try {
+            return action.get();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+}
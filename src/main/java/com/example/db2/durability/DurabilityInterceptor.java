@@ -0,0 +1,55 @@
+package com.example.db2.durability;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Seleciona o perfil de durabilidade da requisição: o cabeçalho X-Durability-Profile, se presente,
+// ou o @Durability do endpoint. O perfil vale apenas para a thread da requisição; em respostas
+// assíncronas (StreamingResponseBody) ele é repassado à thread do executor pelo DurabilityTaskDecorator
+public class DurabilityInterceptor implements AsyncHandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        // A thread pode ter atendido antes uma requisição que não passou pelo afterCompletion
+        DurabilityContext.clear();
+
+        DurabilityProfile profile = null;
+        String header = request.getHeader(DurabilityProfile.HEADER);
+        if (header != null) {
+            profile = DurabilityProfile.fromName(header);
+            if (profile == null) {
+                response.setStatus(HttpStatus.BAD_REQUEST.value());
+                response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                response.getWriter().write("Erro: Perfil de durabilidade inválido: " + header + ".");
+                return false;
+            }
+        } else if (handler instanceof HandlerMethod method && method.hasMethodAnnotation(Durability.class)) {
+            profile = method.getMethodAnnotation(Durability.class).value();
+        }
+
+        if (profile != null) {
+            DurabilityContext.set(profile);
+        }
+        return true;
+    }
+
+    // Em respostas assíncronas o afterCompletion só é chamado no segundo despacho, possivelmente em
+    // outra thread; a thread da requisição é liberada aqui
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        DurabilityContext.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        DurabilityContext.clear();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.db2.durability;
+
+import java.util.Locale;
+
+import com.mongodb.ReadConcern;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoDatabase;
+
+// Perfis de durabilidade selecionáveis por endpoint (@Durability) ou por requisição (cabeçalho
+// X-Durability-Profile). Sem perfil, valem as configurações da string de conexão
+public enum DurabilityProfile {
+
+    // Confirmação apenas do primário, sem esperar o journal: menor latência, indicado para cargas em lote
+    FAST(WriteConcern.W1.withJournal(false), ReadConcern.LOCAL),
+
+    // Confirmação da maioria dos membros com journal, e leituras apenas de dados confirmados pela maioria
+    SAFE(WriteConcern.MAJORITY.withJournal(true), ReadConcern.MAJORITY);
+
+    public static final String HEADER = "X-Durability-Profile";
+
+    private final WriteConcern writeConcern;
+    private final ReadConcern readConcern;
+
+    DurabilityProfile(WriteConcern writeConcern, ReadConcern readConcern) {
+        this.writeConcern = writeConcern;
+        this.readConcern = readConcern;
+    }
+
+    public WriteConcern getWriteConcern() {
+        return writeConcern;
+    }
+
+    public ReadConcern getReadConcern() {
+        return readConcern;
+    }
+
+    public MongoDatabase applyTo(MongoDatabase database) {
+        return database.withWriteConcern(writeConcern).withReadConcern(readConcern);
+    }
+
+    // Retorna null se o nome não corresponder a nenhum perfil
+    public static DurabilityProfile fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.db2.durability;
+
+import org.springframework.core.task.TaskDecorator;
+
+// Repassa o perfil de durabilidade da thread que agenda a tarefa para a thread que a executa.
+// Aplicado ao executor usado pelo Spring MVC nas respostas assíncronas (StreamingResponseBody)
+public class DurabilityTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        DurabilityProfile profile = DurabilityContext.current();
+        return () -> DurabilityContext.with(profile, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+}
@@ -2,6 +2,8 @@ package com.example.db2.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -12,6 +14,9 @@ public class Author {
     @Id
     private String id;
     private String name;
+    @Indexed
     private LocalDate birthDate;
     private String nationality;
+    @Version
+    private Long version; // Incrementada a cada escrita; usada como ETag
 }
\ No newline at end of file
@@ -1,19 +1,37 @@
 package com.example.db2.model;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
 
 @Data
 @Document(collection = "books")
+// Índices para listar os livros de um autor ordenados por data ou título (paginação por cursor)
+@CompoundIndexes({
+        @CompoundIndex(name = "author_publicationDate", def = "{'authorId': 1, 'publicationDate': 1, '_id': 1}"),
+        @CompoundIndex(name = "author_title", def = "{'authorId': 1, 'title': 1, '_id': 1}")
+})
+@JsonFilter("bookFields")
 public class Book {
     @Id
     private String id;
+    @Indexed
     private String title;
     private String authorId;
+    @Indexed
     private LocalDate publicationDate; // Data de publicação do livro
+    @Indexed
     private String genre;              // Gênero do livro
+    @Indexed
     private String isbn;               // ISBN do livro
+    @Version
+    private Long version;              // Incrementada a cada escrita; usada como ETag
 }
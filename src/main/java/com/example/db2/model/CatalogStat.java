@@ -0,0 +1,32 @@
+package com.example.db2.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "catalog_stats")
+public class CatalogStat {
+    public static final String BOOKS_BY_GENRE = "booksByGenre";
+    public static final String AUTHORS_BY_NATIONALITY = "authorsByNationality";
+    public static final String BOOKS_BY_AUTHOR = "booksByAuthor";
+
+    @Id
+    private String id;     // "<facet>:<key>"
+    private String facet;  // Uma das constantes acima
+    private String key;    // Gênero, nacionalidade ou ID do autor
+    private long count;
+
+    public CatalogStat(String facet, String key, long count) {
+        this.id = idOf(facet, key);
+        this.facet = facet;
+        this.key = key;
+        this.count = count;
+    }
+
+    public static String idOf(String facet, String key) {
+        return facet + ":" + key;
+    }
+}
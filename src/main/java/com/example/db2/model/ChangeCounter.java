@@ -0,0 +1,23 @@
+package com.example.db2.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Contador incrementado a cada escrita em uma coleção; compõe o ETag das listagens
+@Data
+@Document(collection = "change_counters")
+public class ChangeCounter {
+    public static final String BOOKS = "books";
+    public static final String AUTHORS = "authors";
+
+    // Contador dos livros de um autor; compõe o ETag e a entrada do cache do detalhe do autor, para
+    // que a escrita em um livro não invalide os demais autores
+    public static String authorBooks(String authorId) {
+        return "books:" + authorId;
+    }
+
+    @Id
+    private String id;     // Nome da coleção ou books:<ID do autor>
+    private long value;
+}
@@ -1,7 +1,24 @@
 package com.example.db2.repository;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Range;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import com.example.db2.model.Author;
 
-public interface AuthorRepository extends MongoRepository<Author, String> {
-}
\ No newline at end of file
+public interface AuthorRepository extends MongoRepository<Author, String>, AuthorRepositoryCustom {
+    // Lê apenas o campo version, para validar ETags sem carregar o documento
+    Optional<EntityVersion> findVersionById(String id);
+
+    List<Author> findByNationality(String nationality, Pageable pageable);
+
+    Page<Author> findByBirthDateBetween(Range<LocalDate> birthDate, Pageable pageable);
+
+    // Percorre a coleção com um cursor, sem materializar todos os autores
+    Stream<Author> streamAllBy();
+}
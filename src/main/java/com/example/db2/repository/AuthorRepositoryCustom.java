@@ -0,0 +1,19 @@
+package com.example.db2.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import com.example.db2.dto.AuthorSummary;
+import com.example.db2.model.Author;
+
+public interface AuthorRepositoryCustom {
+    // Variante com projeção: apenas os campos informados (mais id e version) são lidos do banco
+    Optional<Author> findByIdWithFields(String id, Collection<String> fields);
+
+    // Autores com a quantidade de livros (e opcionalmente a data do livro mais recente), em uma
+    // única agregação. Ordena por quantidade decrescente e depois pelo ID, ou apenas pelo ID.
+    // lastBookCount/lastId identificam o último autor da página anterior; lastId nulo indica a primeira página.
+    List<AuthorSummary> findSummaries(boolean byBookCount, Long lastBookCount, String lastId, int limit,
+            boolean includeLatestPublicationDate);
+}
@@ -0,0 +1,106 @@
+package com.example.db2.repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.example.db2.dto.AuthorSummary;
+import com.example.db2.model.Author;
+import com.example.db2.model.Book;
+
+public class AuthorRepositoryCustomImpl implements AuthorRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<Author> findByIdWithFields(String id, Collection<String> fields) {
+        Query query = Query.query(Criteria.where("id").is(id));
+        return Optional.ofNullable(mongoTemplate.findOne(Projections.withFields(query, fields), Author.class));
+    }
+
+    @Override
+    public List<AuthorSummary> findSummaries(boolean byBookCount, Long lastBookCount, String lastId, int limit,
+            boolean includeLatestPublicationDate) {
+        Object id = lastId == null ? null : ObjectId.isValid(lastId) ? new ObjectId(lastId) : lastId;
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (byBookCount) {
+            // A contagem não é indexável: todos os autores são contados antes de ordenar e paginar
+            stages.addAll(bookCountStages(includeLatestPublicationDate));
+            if (id != null) {
+                stages.add(stage("$match", new Document("$or", List.of(
+                        new Document("bookCount", new Document("$lt", lastBookCount)),
+                        new Document("bookCount", lastBookCount).append("_id", new Document("$gt", id))))));
+            }
+            stages.add(stage("$sort", new Document("bookCount", -1).append("_id", 1)));
+            stages.add(stage("$limit", limit));
+        } else {
+            // Ordenado por ID, a página é delimitada antes do $lookup e apenas os autores dela são contados
+            if (id != null) {
+                stages.add(stage("$match", new Document("_id", new Document("$gt", id))));
+            }
+            stages.add(stage("$sort", new Document("_id", 1)));
+            stages.add(stage("$limit", limit));
+            stages.addAll(bookCountStages(includeLatestPublicationDate));
+        }
+        stages.add(stage("$project", new Document("authorKey", 0).append("bookStats", 0)));
+
+        return mongoTemplate.aggregate(Aggregation.newAggregation(stages),
+                        mongoTemplate.getCollectionName(Author.class), Document.class)
+                .getMappedResults()
+                .stream()
+                .map(this::toSummary)
+                .toList();
+    }
+
+    // $lookup com localField/foreignField usa o índice de books.authorId (prefixo dos índices compostos)
+    // e o $group interno devolve só os totais, sem trazer os livros. Requer MongoDB 5.0 ou superior.
+    private List<AggregationOperation> bookCountStages(boolean includeLatestPublicationDate) {
+        Document group = new Document("_id", null).append("count", new Document("$sum", 1));
+        Document fields = new Document("bookCount",
+                new Document("$ifNull", List.of(new Document("$first", "$bookStats.count"), 0)));
+        if (includeLatestPublicationDate) {
+            group.append("latest", new Document("$max", "$publicationDate"));
+            fields.append("latestPublicationDate", new Document("$first", "$bookStats.latest"));
+        }
+
+        return List.of(
+                // authorId é gravado como texto, enquanto o _id do autor é um ObjectId
+                stage("$addFields", new Document("authorKey", new Document("$toString", "$_id"))),
+                stage("$lookup", new Document("from", mongoTemplate.getCollectionName(Book.class))
+                        .append("localField", "authorKey")
+                        .append("foreignField", "authorId")
+                        .append("pipeline", List.of(new Document("$group", group)))
+                        .append("as", "bookStats")),
+                stage("$addFields", fields));
+    }
+
+    private AuthorSummary toSummary(Document document) {
+        Author author = mongoTemplate.getConverter().read(Author.class, document);
+        Date latest = document.getDate("latestPublicationDate");
+        return new AuthorSummary(
+                author.getId(),
+                author.getName(),
+                author.getBirthDate(),
+                author.getNationality(),
+                ((Number) document.get("bookCount")).longValue(),
+                latest != null ? mongoTemplate.getConverter().getConversionService().convert(latest, LocalDate.class) : null);
+    }
+
+    private static AggregationOperation stage(String operator, Object specification) {
+        Document document = new Document(operator, specification);
+        return context -> document;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.db2.repository;
+
+import java.util.List;
+
+import com.example.db2.dto.BookBulkResponse;
+
+// Resultado de bulkUpdate: a resposta devolvida ao cliente e, para cada livro efetivamente alterado
+// ou inserido, o autor e o gênero antes e depois da escrita (usados nos contadores do catálogo)
+public record BookBulkResult(BookBulkResponse response, List<Change> changes) {
+
+    // Erro dos itens que localizam um livro inserido por um item anterior do mesmo lote
+    public static final String DUPLICATE_INSERT_ERROR = "Erro: O livro já foi inserido por outro item do lote.";
+
+    // id é nulo em inserções localizadas por ISBN; previous* são nulos em inserções
+    public record Change(String id, String previousAuthorId, String previousGenre, String authorId, String genre) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.db2.repository;
+
+import java.time.LocalDate;
+
+// Filtro dinâmico de livros; campos nulos não restringem a busca. titlePrefix é comparado com o
+// início do título e o período de publicação é inclusivo
+public record BookQuery(
+        String authorId,
+        String genre,
+        String isbn,
+        String titlePrefix,
+        LocalDate publishedFrom,
+        LocalDate publishedTo) {
+
+    public boolean isEmpty() {
+        return authorId == null && genre == null && isbn == null && titlePrefix == null
+                && publishedFrom == null && publishedTo == null;
+    }
+}
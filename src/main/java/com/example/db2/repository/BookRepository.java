@@ -1,14 +1,35 @@
 package com.example.db2.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Range;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import com.example.db2.model.Book;
+
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
-public interface BookRepository extends MongoRepository<Book, String> {
+public interface BookRepository extends MongoRepository<Book, String>, BookRepositoryCustom {
     List<Book> findByAuthorId(String authorId);
 
+    // Percorre os livros do autor com um cursor, sem materializá-los
+    Stream<Book> streamByAuthorId(String authorId);
+
     Optional<Book> findByTitle(String title);
-}
\ No newline at end of file
+
+    // Lê apenas o campo version, para validar ETags sem carregar o documento
+    Optional<EntityVersion> findVersionById(String id);
+
+    List<Book> findByIsbn(String isbn);
+
+    List<Book> findByGenre(String genre, Pageable pageable);
+
+    Page<Book> findByPublicationDateBetween(Range<LocalDate> publicationDate, Pageable pageable);
+
+    // Percorre a coleção com um cursor, sem materializar todos os livros
+    Stream<Book> streamAllBy();
+}
@@ -0,0 +1,52 @@
+package com.example.db2.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.example.db2.dto.BookBulkItem;
+import com.example.db2.dto.BookHistogramBucket;
+import com.example.db2.model.Book;
+
+public interface BookRepositoryCustom {
+    // Conta os livros por ano de publicação e gênero; as datas são opcionais
+    List<BookHistogramBucket> countByPublicationYearAndGenre(LocalDate from, LocalDate to);
+
+    // Variantes com projeção: apenas os campos informados (mais id e version) são lidos do banco
+    List<Book> findAllWithFields(Collection<String> fields);
+
+    Optional<Book> findByIdWithFields(String id, Collection<String> fields);
+
+    List<Book> findByAuthorIdWithFields(String authorId, Collection<String> fields);
+
+    Stream<Book> streamByAuthorIdWithFields(String authorId, Collection<String> fields);
+
+    // Página de livros do autor ordenada por sortField e depois pelo ID (paginação por cursor).
+    // lastValue/lastId identificam o último livro da página anterior; lastId nulo indica a primeira página.
+    // fields nulo retorna o documento completo.
+    List<Book> findPageByAuthorId(String authorId, String sortField, Object lastValue, String lastId,
+            int limit, Collection<String> fields);
+
+    // Até limitPerAuthor livros de cada autor (na ordem do ID), em uma única consulta; usada no
+    // carregamento em lote do GraphQL
+    List<Book> findFirstByAuthorIds(Collection<String> authorIds, int limitPerAuthor);
+
+    // Aplica os itens (já validados) em uma única escrita em lote não ordenada. Itens que não alteram
+    // nenhum valor contam como localizados, mas não são escritos. Cada livro é inserido por um único
+    // item: os itens seguintes com a mesma chave são rejeitados. Os erros retornados indicam a
+    // posição do item na lista recebida
+    BookBulkResult bulkUpdate(List<BookBulkItem> items);
+
+    // Índice seletivo que atende ao filtro, ou vazio se a busca exigiria percorrer a coleção inteira
+    // (ou um índice de baixa seletividade, como o de genre)
+    Optional<String> findIndexFor(BookQuery query);
+
+    // Quantidade aproximada de livros, lida dos metadados da coleção
+    long estimateCount();
+
+    // Busca pelo filtro usando o índice informado como hint (null deixa a escolha para o planejador).
+    // fields nulo retorna o documento completo
+    List<Book> findByQuery(BookQuery query, String index, int limit, Collection<String> fields);
+}
@@ -0,0 +1,409 @@
+package com.example.db2.repository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.example.db2.dto.BookBulkError;
+import com.example.db2.dto.BookBulkItem;
+import com.example.db2.dto.BookBulkResponse;
+import com.example.db2.dto.BookHistogramBucket;
+import com.example.db2.model.Book;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private static final Duration INDEX_REFRESH_INTERVAL = Duration.ofMinutes(5);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private volatile List<IndexInfo> indexes;
+    private volatile long indexesLoadedAt;
+
+    @Override
+    public List<BookHistogramBucket> countByPublicationYearAndGenre(LocalDate from, LocalDate to) {
+        Criteria criteria = Criteria.where("publicationDate").ne(null);
+        if (from != null) {
+            criteria = criteria.gte(from);
+        }
+        if (to != null) {
+            criteria = criteria.lte(to);
+        }
+
+        // O LocalDate é gravado como meia-noite no fuso da aplicação, então o ano é extraído nesse mesmo fuso
+        DateOperators.Timezone timezone = DateOperators.Timezone.valueOf(ZoneId.systemDefault().getId());
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.project("genre")
+                        .and(DateOperators.Year.yearOf("publicationDate").withTimezone(timezone)).as("year"),
+                Aggregation.group("year", "genre").count().as("count"),
+                Aggregation.sort(Sort.by("year", "genre")));
+
+        return mongoTemplate.aggregate(aggregation, Book.class, Document.class)
+                .getMappedResults()
+                .stream()
+                .map(result -> {
+                    Document key = result.get("_id", Document.class);
+                    return new BookHistogramBucket(
+                            key.getInteger("year"),
+                            key.getString("genre"),
+                            ((Number) result.get("count")).longValue());
+                })
+                .toList();
+    }
+
+    @Override
+    public List<Book> findAllWithFields(Collection<String> fields) {
+        return mongoTemplate.find(Projections.withFields(new Query(), fields), Book.class);
+    }
+
+    @Override
+    public Optional<Book> findByIdWithFields(String id, Collection<String> fields) {
+        Query query = Query.query(Criteria.where("id").is(id));
+        return Optional.ofNullable(mongoTemplate.findOne(Projections.withFields(query, fields), Book.class));
+    }
+
+    @Override
+    public List<Book> findByAuthorIdWithFields(String authorId, Collection<String> fields) {
+        Query query = Query.query(Criteria.where("authorId").is(authorId));
+        return mongoTemplate.find(Projections.withFields(query, fields), Book.class);
+    }
+
+    @Override
+    public Stream<Book> streamByAuthorIdWithFields(String authorId, Collection<String> fields) {
+        Query query = Query.query(Criteria.where("authorId").is(authorId));
+        return mongoTemplate.stream(Projections.withFields(query, fields), Book.class);
+    }
+
+    @Override
+    public List<Book> findFirstByAuthorIds(Collection<String> authorIds, int limitPerAuthor) {
+        // $setWindowFields numera os livros de cada autor e o $match seguinte descarta os excedentes
+        // no próprio banco, então um autor com muitos livros não aumenta o tráfego
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("authorId").in(authorIds)),
+                stage("$setWindowFields", new Document("partitionBy", "$authorId")
+                        .append("sortBy", new Document("_id", 1))
+                        .append("output", new Document("position", new Document("$documentNumber", new Document())))),
+                stage("$match", new Document("position", new Document("$lte", limitPerAuthor))),
+                stage("$project", new Document("position", 0)));
+        return mongoTemplate.aggregate(aggregation, Book.class, Book.class).getMappedResults();
+    }
+
+    @Override
+    public List<Book> findPageByAuthorId(String authorId, String sortField, Object lastValue, String lastId,
+            int limit, Collection<String> fields) {
+        Criteria criteria = Criteria.where("authorId").is(authorId);
+        if (lastId != null) {
+            Object id = ObjectId.isValid(lastId) ? new ObjectId(lastId) : lastId;
+            // Como no Mongo nulos vêm antes na ordem crescente, após um valor nulo ainda restam
+            // os demais nulos com ID maior e todos os valores não nulos
+            Criteria after = lastValue == null
+                    ? new Criteria().orOperator(
+                            Criteria.where(sortField).is(null).and("_id").gt(id),
+                            Criteria.where(sortField).ne(null))
+                    : new Criteria().orOperator(
+                            Criteria.where(sortField).gt(lastValue),
+                            Criteria.where(sortField).is(lastValue).and("_id").gt(id));
+            criteria = new Criteria().andOperator(criteria, after);
+        }
+
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Order.asc(sortField), Sort.Order.asc("_id")))
+                .limit(limit);
+        if (fields != null) {
+            // O campo de ordenação é sempre lido, pois compõe o cursor da próxima página
+            Projections.withFields(query, fields).fields().include(sortField);
+        }
+        return mongoTemplate.find(query, Book.class);
+    }
+
+    @Override
+    public BookBulkResult bulkUpdate(List<BookBulkItem> items) {
+        List<BookBulkResult.Change> changes = new ArrayList<>();
+        List<BookBulkError> errors = new ArrayList<>();
+        if (items.isEmpty()) {
+            return new BookBulkResult(new BookBulkResponse(0, 0, 0, errors), changes);
+        }
+
+        // Estado atual dos livros referenciados, lido em uma única consulta: permite pular os itens
+        // que não mudam nada e informar aos contadores o autor e o gênero anteriores. Os livros
+        // existentes passam a ser localizados pelo _id, para que a escrita atinja o mesmo documento lido
+        Map<String, Book> byId = new HashMap<>();
+        Map<String, Book> byIsbn = new HashMap<>();
+        for (Book book : findCurrent(items)) {
+            byId.put(book.getId(), book);
+            if (book.getIsbn() != null) {
+                byIsbn.putIfAbsent(book.getIsbn(), book);
+            }
+        }
+
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Book.class);
+        List<Integer> positions = new ArrayList<>();                   // Posição, em items, de cada operação
+        List<BookBulkResult.Change> pending = new ArrayList<>();       // Alteração de cada operação
+        Set<String> inserted = new HashSet<>();                        // Chaves dos livros inseridos no lote
+        long unchanged = 0;
+        for (int index = 0; index < items.size(); index++) {
+            BookBulkItem item = items.get(index);
+            Book current = item.getId() != null ? byId.get(item.getId()) : byIsbn.get(item.getIsbn());
+            if (current == null && insertedByEarlierItem(item, inserted)) {
+                // As escritas do lote não enxergam umas às outras: outro upsert com a mesma chave inseriria um
+                // segundo livro, e uma atualização não encontraria o livro
+                errors.add(new BookBulkError(index, BookBulkResult.DUPLICATE_INSERT_ERROR));
+                continue;
+            }
+            if (current == null && !item.isUpsert()) {
+                continue; // Nenhum livro a atualizar
+            }
+
+            // Como a escrita não passa pelo save(), a versão é incrementada aqui para invalidar os ETags
+            Update update = new Update().inc("version", 1);
+            if (item.getTitle() != null) {
+                update.set("title", item.getTitle());
+            }
+            if (item.getAuthorId() != null) {
+                update.set("authorId", item.getAuthorId());
+            }
+            if (item.getPublicationDate() != null) {
+                update.set("publicationDate", item.getPublicationDate());
+            }
+            if (item.getGenre() != null) {
+                update.set("genre", item.getGenre());
+            }
+            if (item.getId() != null && item.getIsbn() != null) {
+                update.set("isbn", item.getIsbn());
+            }
+
+            if (current == null) {
+                Query query = Query.query(item.getId() != null
+                        ? Criteria.where("id").is(item.getId())
+                        : Criteria.where("isbn").is(item.getIsbn()));
+                operations.upsert(query, update);
+                if (item.getId() != null) {
+                    inserted.add("id:" + item.getId());
+                }
+                if (item.getIsbn() != null) {
+                    inserted.add("isbn:" + item.getIsbn());
+                }
+                pending.add(new BookBulkResult.Change(item.getId(), null, null, item.getAuthorId(), item.getGenre()));
+            } else {
+                String previousAuthorId = current.getAuthorId();
+                String previousGenre = current.getGenre();
+                // applyTo também atualiza a cópia lida, para que um item seguinte sobre o mesmo livro parta dela
+                if (!item.applyTo(current)) {
+                    unchanged++;
+                    continue;
+                }
+                operations.updateOne(Query.query(Criteria.where("id").is(current.getId())), update);
+                pending.add(new BookBulkResult.Change(current.getId(), previousAuthorId, previousGenre,
+                        current.getAuthorId(), current.getGenre()));
+            }
+            positions.add(index);
+        }
+
+        if (positions.isEmpty()) {
+            return new BookBulkResult(new BookBulkResponse(unchanged, 0, 0, errors), changes);
+        }
+
+        BulkWriteResult result;
+        Set<Integer> failed = new HashSet<>();
+        try {
+            result = operations.execute();
+        } catch (BulkOperationException e) {
+            // No modo não ordenado os demais itens são aplicados mesmo quando alguns falham
+            result = e.getResult();
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(error.getIndex());
+                errors.add(new BookBulkError(positions.get(error.getIndex()), error.getMessage()));
+            }
+        }
+        for (int operation = 0; operation < pending.size(); operation++) {
+            if (!failed.contains(operation)) {
+                changes.add(pending.get(operation));
+            }
+        }
+        BookBulkResponse response = new BookBulkResponse(unchanged + result.getMatchedCount(),
+                result.getModifiedCount(), result.getUpserts().size(), errors);
+        return new BookBulkResult(response, changes);
+    }
+
+    // Um item localiza o livro pelo id ou, na falta dele, pelo ISBN
+    private static boolean insertedByEarlierItem(BookBulkItem item, Set<String> inserted) {
+        return item.getId() != null
+                ? inserted.contains("id:" + item.getId())
+                : inserted.contains("isbn:" + item.getIsbn());
+    }
+
+    private List<Book> findCurrent(List<BookBulkItem> items) {
+        Set<String> ids = new HashSet<>();
+        Set<String> isbns = new HashSet<>();
+        for (BookBulkItem item : items) {
+            if (item.getId() != null) {
+                ids.add(item.getId());
+            } else {
+                isbns.add(item.getIsbn());
+            }
+        }
+        Criteria criteria = new Criteria().orOperator(
+                Criteria.where("id").in(ids),
+                Criteria.where("isbn").in(isbns));
+        return mongoTemplate.find(Query.query(criteria), Book.class);
+    }
+
+    @Override
+    public Optional<String> findIndexFor(BookQuery query) {
+        // genre tem poucos valores distintos e um prefixo vazio casa com todos os títulos: esses
+        // campos ajudam a estender o prefixo de um índice composto, mas sozinhos não o tornam seletivo
+        Set<String> equalityFields = new HashSet<>();
+        Set<String> rangeFields = new HashSet<>();
+        Set<String> selectiveFields = new HashSet<>();
+        if (query.authorId() != null) {
+            equalityFields.add("authorId");
+            selectiveFields.add("authorId");
+        }
+        if (query.genre() != null) {
+            equalityFields.add("genre");
+        }
+        if (query.isbn() != null) {
+            equalityFields.add("isbn");
+            selectiveFields.add("isbn");
+        }
+        if (query.titlePrefix() != null && !query.titlePrefix().isEmpty()) {
+            rangeFields.add("title"); // Prefixo ancorado vira um intervalo no índice
+            selectiveFields.add("title");
+        }
+        if (query.publishedFrom() != null || query.publishedTo() != null) {
+            rangeFields.add("publicationDate");
+            selectiveFields.add("publicationDate");
+        }
+
+        // Um índice é útil se o filtro cobre o seu prefixo, incluindo ao menos um campo seletivo: cada
+        // campo de igualdade coberto vale 2 e a cobertura termina no primeiro campo de intervalo. Em
+        // caso de empate, vence o índice menor
+        String best = null;
+        int bestScore = 0;
+        int bestSize = Integer.MAX_VALUE;
+        for (IndexInfo index : indexes()) {
+            int score = 0;
+            boolean selective = false;
+            for (IndexField field : index.getIndexFields()) {
+                if (equalityFields.contains(field.getKey())) {
+                    score += 2;
+                    selective |= selectiveFields.contains(field.getKey());
+                    continue;
+                }
+                if (rangeFields.contains(field.getKey())) {
+                    score += 1;
+                    selective = true;
+                }
+                break;
+            }
+            if (!selective) {
+                continue;
+            }
+            int size = index.getIndexFields().size();
+            if (score > bestScore || (score == bestScore && size < bestSize)) {
+                best = index.getName();
+                bestScore = score;
+                bestSize = size;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    @Override
+    public long estimateCount() {
+        return mongoTemplate.estimatedCount(Book.class);
+    }
+
+    @Override
+    public List<Book> findByQuery(BookQuery query, String index, int limit, Collection<String> fields) {
+        Criteria criteria = new Criteria();
+        if (query.authorId() != null) {
+            criteria.and("authorId").is(query.authorId());
+        }
+        if (query.genre() != null) {
+            criteria.and("genre").is(query.genre());
+        }
+        if (query.isbn() != null) {
+            criteria.and("isbn").is(query.isbn());
+        }
+        if (query.titlePrefix() != null && !query.titlePrefix().isEmpty()) {
+            criteria.and("title").regex("^" + escapeRegex(query.titlePrefix()));
+        }
+        if (query.publishedFrom() != null || query.publishedTo() != null) {
+            Criteria publicationDate = criteria.and("publicationDate");
+            if (query.publishedFrom() != null) {
+                publicationDate.gte(query.publishedFrom());
+            }
+            if (query.publishedTo() != null) {
+                publicationDate.lte(query.publishedTo());
+            }
+        }
+
+        Query mongoQuery = Query.query(criteria).limit(limit);
+        if (index != null) {
+            mongoQuery.withHint(index);
+        }
+        if (fields != null) {
+            Projections.withFields(mongoQuery, fields);
+        }
+        return mongoTemplate.find(mongoQuery, Book.class);
+    }
+
+    // Os índices mudam raramente; a lista é relida do banco a cada poucos minutos
+    private List<IndexInfo> indexes() {
+        List<IndexInfo> current = indexes;
+        if (current == null || System.nanoTime() - indexesLoadedAt > INDEX_REFRESH_INTERVAL.toNanos()) {
+            current = mongoTemplate.indexOps(Book.class).getIndexInfo();
+            indexes = current;
+            indexesLoadedAt = System.nanoTime();
+        }
+        return current;
+    }
+
+    // Escapa os metacaracteres um a um (e não com \Q...\E), para que o Mongo reconheça o
+    // prefixo ancorado e use o índice
+    private static String escapeRegex(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            if ("\\^$.|?*+()[]{}".indexOf(c) >= 0) {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private static AggregationOperation stage(String operator, Object specification) {
+        Document document = new Document(operator, specification);
+        return context -> document;
+    }
+}
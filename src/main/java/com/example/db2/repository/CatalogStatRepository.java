@@ -0,0 +1,11 @@
+package com.example.db2.repository;
+
+import java.util.List;
+
+import org.springframework.data.repository.Repository;
+
+import com.example.db2.model.CatalogStat;
+
+public interface CatalogStatRepository extends Repository<CatalogStat, String>, CatalogStatRepositoryCustom {
+    List<CatalogStat> findAll();
+}
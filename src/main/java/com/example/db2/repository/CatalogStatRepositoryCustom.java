@@ -0,0 +1,17 @@
+package com.example.db2.repository;
+
+import java.util.List;
+
+import com.example.db2.model.CatalogStat;
+
+public interface CatalogStatRepositoryCustom {
+    // Aplica um delta ($inc) ao contador, criando-o se ainda não existir
+    void increment(String facet, String key, long delta);
+
+    // Recalcula todos os contadores a partir das coleções de livros e autores
+    List<CatalogStat> computeFromSources();
+
+    // Aplica os deltas informados (o count de cada item) com $inc em um único lote e remove os
+    // contadores que chegarem a zero
+    void incrementAll(List<CatalogStat> deltas);
+}
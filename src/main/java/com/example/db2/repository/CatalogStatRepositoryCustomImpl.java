@@ -0,0 +1,79 @@
+package com.example.db2.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.example.db2.model.Author;
+import com.example.db2.model.Book;
+import com.example.db2.model.CatalogStat;
+
+public class CatalogStatRepositoryCustomImpl implements CatalogStatRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void increment(String facet, String key, long delta) {
+        Query query = Query.query(Criteria.where("_id").is(CatalogStat.idOf(facet, key)));
+        Update update = new Update()
+                .inc("count", delta)
+                .setOnInsert("facet", facet)
+                .setOnInsert("key", key);
+        mongoTemplate.upsert(query, update, CatalogStat.class);
+    }
+
+    @Override
+    public List<CatalogStat> computeFromSources() {
+        List<CatalogStat> stats = new ArrayList<>();
+        stats.addAll(countBy(Book.class, "genre", CatalogStat.BOOKS_BY_GENRE));
+        stats.addAll(countBy(Author.class, "nationality", CatalogStat.AUTHORS_BY_NATIONALITY));
+        stats.addAll(countBy(Book.class, "authorId", CatalogStat.BOOKS_BY_AUTHOR));
+        return stats;
+    }
+
+    @Override
+    public void incrementAll(List<CatalogStat> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CatalogStat.class);
+        for (CatalogStat delta : deltas) {
+            operations.upsert(
+                    Query.query(Criteria.where("_id").is(delta.getId())),
+                    new Update()
+                            .inc("count", delta.getCount())
+                            .setOnInsert("facet", delta.getFacet())
+                            .setOnInsert("key", delta.getKey()));
+        }
+        operations.execute();
+
+        // A condição count = 0 é avaliada no próprio delete, então um $inc concorrente não se perde
+        List<String> ids = deltas.stream().map(CatalogStat::getId).toList();
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids).and("count").is(0)), CatalogStat.class);
+    }
+
+    private List<CatalogStat> countBy(Class<?> source, String field, String facet) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where(field).ne(null)),
+                Aggregation.group(field).count().as("count"));
+
+        return mongoTemplate.aggregate(aggregation, source, Document.class)
+                .getMappedResults()
+                .stream()
+                .map(result -> new CatalogStat(
+                        facet,
+                        result.get("_id").toString(),
+                        ((Number) result.get("count")).longValue()))
+                .toList();
+    }
+}
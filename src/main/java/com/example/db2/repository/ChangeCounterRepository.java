@@ -0,0 +1,17 @@
+package com.example.db2.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.repository.Repository;
+
+import com.example.db2.model.ChangeCounter;
+
+public interface ChangeCounterRepository extends Repository<ChangeCounter, String>, ChangeCounterRepositoryCustom {
+    Optional<ChangeCounter> findById(String id);
+
+    void deleteById(String id);
+
+    default long currentValue(String id) {
+        return findById(id).map(ChangeCounter::getValue).orElse(0L);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.db2.repository;
+
+import java.util.Collection;
+
+public interface ChangeCounterRepositoryCustom {
+    // Incrementa ($inc) o contador, criando-o se ainda não existir
+    void increment(String id);
+
+    // Incrementa vários contadores em uma única escrita em lote
+    void incrementAll(Collection<String> ids);
+}
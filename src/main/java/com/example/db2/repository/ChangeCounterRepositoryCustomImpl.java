@@ -0,0 +1,35 @@
+package com.example.db2.repository;
+
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.example.db2.model.ChangeCounter;
+
+public class ChangeCounterRepositoryCustomImpl implements ChangeCounterRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void increment(String id) {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(id)), new Update().inc("value", 1), ChangeCounter.class);
+    }
+
+    @Override
+    public void incrementAll(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChangeCounter.class);
+        for (String id : ids) {
+            operations.upsert(Query.query(Criteria.where("_id").is(id)), new Update().inc("value", 1));
+        }
+        operations.execute();
+    }
+}
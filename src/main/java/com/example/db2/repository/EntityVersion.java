@@ -0,0 +1,6 @@
+package com.example.db2.repository;
+
+// Projeção fechada: o Mongo retorna somente o campo version
+public interface EntityVersion {
+    Long getVersion();
+}
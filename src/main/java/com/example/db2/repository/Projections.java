@@ -0,0 +1,17 @@
+package com.example.db2.repository;
+
+import java.util.Collection;
+
+import org.springframework.data.mongodb.core.query.Query;
+
+final class Projections {
+
+    private Projections() {
+    }
+
+    // Inclui apenas os campos informados; a versão é sempre lida para que o ETag continue disponível
+    static Query withFields(Query query, Collection<String> fields) {
+        query.fields().include(fields.toArray(String[]::new)).include("version");
+        return query;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.db2.repository.memory;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Range;
+import org.springframework.stereotype.Repository;
+
+import com.example.db2.dto.AuthorSummary;
+import com.example.db2.model.Author;
+import com.example.db2.model.Book;
+import com.example.db2.repository.AuthorRepository;
+import com.example.db2.repository.EntityVersion;
+
+@Repository
+@Profile("memory")
+public class InMemoryAuthorRepository extends InMemoryRepository<Author> implements AuthorRepository {
+
+    @Autowired
+    private InMemoryBookRepository bookRepository;
+
+    @Override
+    public List<Author> findByNationality(String nationality, Pageable pageable) {
+        return page(scan().filter(author -> Objects.equals(nationality, author.getNationality())), pageable).getContent();
+    }
+
+    @Override
+    public Page<Author> findByBirthDateBetween(Range<LocalDate> birthDate, Pageable pageable) {
+        return page(scan().filter(author -> within(birthDate, author.getBirthDate())), pageable);
+    }
+
+    @Override
+    public Stream<Author> streamAllBy() {
+        return scan();
+    }
+
+    @Override
+    public Optional<EntityVersion> findVersionById(String id) {
+        return versionOf(id);
+    }
+
+    // Em memória não há custo de leitura ou decodificação a economizar; a seleção de campos
+    // é aplicada apenas na serialização
+    @Override
+    public Optional<Author> findByIdWithFields(String id, Collection<String> fields) {
+        return findById(id);
+    }
+
+    @Override
+    public List<AuthorSummary> findSummaries(boolean byBookCount, Long lastBookCount, String lastId, int limit,
+            boolean includeLatestPublicationDate) {
+        Comparator<AuthorSummary> order = byBookCount
+                ? Comparator.comparingLong(AuthorSummary::getBookCount).reversed().thenComparing(AuthorSummary::getId)
+                : Comparator.comparing(AuthorSummary::getId);
+
+        Stream<AuthorSummary> summaries = scan().map(author -> summarize(author, includeLatestPublicationDate));
+        if (lastId != null) {
+            AuthorSummary last = new AuthorSummary(lastId, null, null, null,
+                    lastBookCount != null ? lastBookCount : 0, null);
+            summaries = summaries.filter(summary -> order.compare(summary, last) > 0);
+        }
+        return summaries.sorted(order).limit(limit).toList();
+    }
+
+    private AuthorSummary summarize(Author author, boolean includeLatestPublicationDate) {
+        List<Book> books = bookRepository.findByAuthorId(author.getId());
+        LocalDate latest = null;
+        if (includeLatestPublicationDate) {
+            latest = books.stream()
+                    .map(Book::getPublicationDate)
+                    .filter(Objects::nonNull)
+                    .max(Comparator.naturalOrder())
+                    .orElse(null);
+        }
+        return new AuthorSummary(author.getId(), author.getName(), author.getBirthDate(), author.getNationality(),
+                books.size(), latest);
+    }
+
+    @Override
+    protected String getId(Author author) {
+        return author.getId();
+    }
+
+    @Override
+    protected void setId(Author author, String id) {
+        author.setId(id);
+    }
+
+    @Override
+    protected Long getVersion(Author author) {
+        return author.getVersion();
+    }
+
+    @Override
+    protected void setVersion(Author author, Long version) {
+        author.setVersion(version);
+    }
+
+    @Override
+    protected Author copy(Author author) {
+        Author copy = new Author();
+        copy.setId(author.getId());
+        copy.setName(author.getName());
+        copy.setBirthDate(author.getBirthDate());
+        copy.setNationality(author.getNationality());
+        copy.setVersion(author.getVersion());
+        return copy;
+    }
+}
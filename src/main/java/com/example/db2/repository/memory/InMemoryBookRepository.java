@@ -0,0 +1,289 @@
+package com.example.db2.repository.memory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Range.Bound;
+import org.springframework.stereotype.Repository;
+
+import com.example.db2.dto.BookBulkError;
+import com.example.db2.dto.BookBulkItem;
+import com.example.db2.dto.BookBulkResponse;
+import com.example.db2.dto.BookHistogramBucket;
+import com.example.db2.model.Book;
+import com.example.db2.repository.BookBulkResult;
+import com.example.db2.repository.BookQuery;
+import com.example.db2.repository.BookRepository;
+import com.example.db2.repository.EntityVersion;
+
+@Repository
+@Profile("memory")
+public class InMemoryBookRepository extends InMemoryRepository<Book> implements BookRepository {
+
+    private final HashIndex<Book> byAuthorId = addIndex(Book::getAuthorId);
+    private final HashIndex<Book> byIsbn = addIndex(Book::getIsbn);
+    private final HashIndex<Book> byTitle = addIndex(Book::getTitle);
+
+    @Override
+    public List<Book> findByAuthorId(String authorId) {
+        return lookup(byAuthorId, authorId).toList();
+    }
+
+    @Override
+    public List<Book> findFirstByAuthorIds(Collection<String> authorIds, int limitPerAuthor) {
+        return authorIds.stream()
+                .distinct()
+                .flatMap(authorId -> lookup(byAuthorId, authorId)
+                        .sorted(Comparator.comparing(Book::getId))
+                        .limit(limitPerAuthor))
+                .toList();
+    }
+
+    @Override
+    public Stream<Book> streamByAuthorId(String authorId) {
+        return lookup(byAuthorId, authorId);
+    }
+
+    @Override
+    public Optional<Book> findByTitle(String title) {
+        return single(lookup(byTitle, title));
+    }
+
+    @Override
+    public List<Book> findByIsbn(String isbn) {
+        return lookup(byIsbn, isbn).toList();
+    }
+
+    @Override
+    public List<Book> findByGenre(String genre, Pageable pageable) {
+        return page(scan().filter(book -> Objects.equals(genre, book.getGenre())), pageable).getContent();
+    }
+
+    @Override
+    public Page<Book> findByPublicationDateBetween(Range<LocalDate> publicationDate, Pageable pageable) {
+        return page(scan().filter(book -> within(publicationDate, book.getPublicationDate())), pageable);
+    }
+
+    @Override
+    public List<BookHistogramBucket> countByPublicationYearAndGenre(LocalDate from, LocalDate to) {
+        Range<LocalDate> period = Range.of(
+                from != null ? Bound.inclusive(from) : Bound.unbounded(),
+                to != null ? Bound.inclusive(to) : Bound.unbounded());
+
+        return scan()
+                .filter(book -> within(period, book.getPublicationDate()))
+                .collect(Collectors.groupingBy(
+                        book -> Arrays.<Object>asList(book.getPublicationDate().getYear(), book.getGenre()),
+                        Collectors.counting()))
+                .entrySet()
+                .stream()
+                .map(entry -> new BookHistogramBucket(
+                        (Integer) entry.getKey().get(0),
+                        (String) entry.getKey().get(1),
+                        entry.getValue()))
+                .sorted(Comparator.comparingInt(BookHistogramBucket::getYear)
+                        .thenComparing(BookHistogramBucket::getGenre, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .toList();
+    }
+
+    @Override
+    public Stream<Book> streamAllBy() {
+        return scan();
+    }
+
+    @Override
+    public Optional<EntityVersion> findVersionById(String id) {
+        return versionOf(id);
+    }
+
+    // Em memória não há custo de leitura ou decodificação a economizar; a seleção de campos
+    // é aplicada apenas na serialização
+    @Override
+    public List<Book> findAllWithFields(Collection<String> fields) {
+        return findAll();
+    }
+
+    @Override
+    public Optional<Book> findByIdWithFields(String id, Collection<String> fields) {
+        return findById(id);
+    }
+
+    @Override
+    public List<Book> findByAuthorIdWithFields(String authorId, Collection<String> fields) {
+        return findByAuthorId(authorId);
+    }
+
+    @Override
+    public Stream<Book> streamByAuthorIdWithFields(String authorId, Collection<String> fields) {
+        return streamByAuthorId(authorId);
+    }
+
+    @Override
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public List<Book> findPageByAuthorId(String authorId, String sortField, Object lastValue, String lastId,
+            int limit, Collection<String> fields) {
+        Function<Book, Comparable> key = "title".equals(sortField) ? Book::getTitle : Book::getPublicationDate;
+        // Mesma ordem do Mongo: nulos primeiro e, em caso de empate, pelo ID
+        Comparator<Book> order = Comparator.comparing(key, Comparator.nullsFirst(Comparator.<Comparable>naturalOrder()))
+                .thenComparing(Book::getId);
+
+        Stream<Book> books = lookup(byAuthorId, authorId);
+        if (lastId != null) {
+            Book last = new Book();
+            last.setId(lastId);
+            if ("title".equals(sortField)) {
+                last.setTitle((String) lastValue);
+            } else {
+                last.setPublicationDate((LocalDate) lastValue);
+            }
+            books = books.filter(book -> order.compare(book, last) > 0);
+        }
+        return books.sorted(order).limit(limit).toList();
+    }
+
+    @Override
+    public BookBulkResult bulkUpdate(List<BookBulkItem> items) {
+        long matched = 0;
+        long modified = 0;
+        long upserted = 0;
+        List<BookBulkError> errors = new ArrayList<>();
+        List<BookBulkResult.Change> changes = new ArrayList<>();
+        Set<String> inserted = new HashSet<>(); // Livros inseridos pelo lote
+        for (int index = 0; index < items.size(); index++) {
+            BookBulkItem item = items.get(index);
+            Optional<Book> existing = item.getId() != null
+                    ? findById(item.getId())
+                    : findByIsbn(item.getIsbn()).stream().findFirst();
+            // Como no Mongo, onde as escritas do lote não enxergam umas às outras, um livro inserido pelo
+            // lote não é localizado pelos itens seguintes
+            if (existing.isPresent() && inserted.contains(existing.get().getId())) {
+                errors.add(new BookBulkError(index, BookBulkResult.DUPLICATE_INSERT_ERROR));
+                continue;
+            }
+            if (existing.isEmpty() && !item.isUpsert()) {
+                continue;
+            }
+
+            Book book = existing.orElseGet(Book::new);
+            String previousAuthorId = book.getAuthorId();
+            String previousGenre = book.getGenre();
+            if (existing.isEmpty()) {
+                book.setId(item.getId());
+                book.setIsbn(item.getIsbn());
+            }
+            // Assim como no Mongo, um item que não altera nenhum valor conta como localizado, mas não é escrito
+            if (!item.applyTo(book) && existing.isPresent()) {
+                matched++;
+                continue;
+            }
+
+            try {
+                save(book);
+                if (existing.isPresent()) {
+                    matched++;
+                    modified++;
+                } else {
+                    upserted++;
+                    inserted.add(book.getId());
+                }
+                changes.add(new BookBulkResult.Change(book.getId(), previousAuthorId, previousGenre,
+                        book.getAuthorId(), book.getGenre()));
+            } catch (DataAccessException e) {
+                errors.add(new BookBulkError(index, e.getMessage()));
+            }
+        }
+        return new BookBulkResult(new BookBulkResponse(matched, modified, upserted, errors), changes);
+    }
+
+    // Os índices em memória são de hash: atendem apenas a igualdade em authorId e isbn
+    @Override
+    public Optional<String> findIndexFor(BookQuery query) {
+        if (query.isbn() != null) {
+            return Optional.of("isbn");
+        }
+        if (query.authorId() != null) {
+            return Optional.of("authorId");
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public long estimateCount() {
+        return count();
+    }
+
+    @Override
+    public List<Book> findByQuery(BookQuery query, String index, int limit, Collection<String> fields) {
+        Stream<Book> candidates;
+        if ("isbn".equals(index)) {
+            candidates = lookup(byIsbn, query.isbn());
+        } else if ("authorId".equals(index)) {
+            candidates = lookup(byAuthorId, query.authorId());
+        } else {
+            candidates = scan();
+        }
+
+        Range<LocalDate> period = Range.of(
+                query.publishedFrom() != null ? Bound.inclusive(query.publishedFrom()) : Bound.unbounded(),
+                query.publishedTo() != null ? Bound.inclusive(query.publishedTo()) : Bound.unbounded());
+        boolean byPeriod = query.publishedFrom() != null || query.publishedTo() != null;
+        return candidates
+                .filter(book -> query.authorId() == null || query.authorId().equals(book.getAuthorId()))
+                .filter(book -> query.genre() == null || query.genre().equals(book.getGenre()))
+                .filter(book -> query.isbn() == null || query.isbn().equals(book.getIsbn()))
+                .filter(book -> query.titlePrefix() == null
+                        || (book.getTitle() != null && book.getTitle().startsWith(query.titlePrefix())))
+                .filter(book -> !byPeriod || within(period, book.getPublicationDate()))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    protected String getId(Book book) {
+        return book.getId();
+    }
+
+    @Override
+    protected void setId(Book book, String id) {
+        book.setId(id);
+    }
+
+    @Override
+    protected Long getVersion(Book book) {
+        return book.getVersion();
+    }
+
+    @Override
+    protected void setVersion(Book book, Long version) {
+        book.setVersion(version);
+    }
+
+    @Override
+    protected Book copy(Book book) {
+        Book copy = new Book();
+        copy.setId(book.getId());
+        copy.setTitle(book.getTitle());
+        copy.setAuthorId(book.getAuthorId());
+        copy.setPublicationDate(book.getPublicationDate());
+        copy.setGenre(book.getGenre());
+        copy.setIsbn(book.getIsbn());
+        copy.setVersion(book.getVersion());
+        return copy;
+    }
+}
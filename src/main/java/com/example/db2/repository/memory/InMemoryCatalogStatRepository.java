@@ -0,0 +1,77 @@
+package com.example.db2.repository.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.example.db2.model.Author;
+import com.example.db2.model.Book;
+import com.example.db2.model.CatalogStat;
+import com.example.db2.repository.AuthorRepository;
+import com.example.db2.repository.BookRepository;
+import com.example.db2.repository.CatalogStatRepository;
+
+@Repository
+@Profile("memory")
+public class InMemoryCatalogStatRepository implements CatalogStatRepository {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    private final Map<String, CatalogStat> stats = new ConcurrentHashMap<>();
+
+    @Override
+    public List<CatalogStat> findAll() {
+        return stats.values().stream()
+                .map(stat -> new CatalogStat(stat.getFacet(), stat.getKey(), stat.getCount()))
+                .toList();
+    }
+
+    @Override
+    public void increment(String facet, String key, long delta) {
+        stats.compute(CatalogStat.idOf(facet, key), (id, stat) ->
+                new CatalogStat(facet, key, (stat == null ? 0 : stat.getCount()) + delta));
+    }
+
+    @Override
+    public List<CatalogStat> computeFromSources() {
+        List<Book> books = bookRepository.findAll();
+        List<CatalogStat> result = new ArrayList<>();
+        result.addAll(countBy(books, Book::getGenre, CatalogStat.BOOKS_BY_GENRE));
+        result.addAll(countBy(authorRepository.findAll(), Author::getNationality, CatalogStat.AUTHORS_BY_NATIONALITY));
+        result.addAll(countBy(books, Book::getAuthorId, CatalogStat.BOOKS_BY_AUTHOR));
+        return result;
+    }
+
+    @Override
+    public void incrementAll(List<CatalogStat> deltas) {
+        for (CatalogStat delta : deltas) {
+            stats.compute(delta.getId(), (id, stat) -> {
+                long count = (stat == null ? 0 : stat.getCount()) + delta.getCount();
+                return count == 0 ? null : new CatalogStat(delta.getFacet(), delta.getKey(), count);
+            });
+        }
+    }
+
+    private static <T> List<CatalogStat> countBy(List<T> source, Function<T, String> field, String facet) {
+        return source.stream()
+                .map(field)
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
+                .entrySet()
+                .stream()
+                .map(entry -> new CatalogStat(facet, entry.getKey(), entry.getValue()))
+                .toList();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.db2.repository.memory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.example.db2.model.ChangeCounter;
+import com.example.db2.repository.ChangeCounterRepository;
+
+@Repository
+@Profile("memory")
+public class InMemoryChangeCounterRepository implements ChangeCounterRepository {
+
+    // Os contadores começam no instante da inicialização para que um ETag emitido antes de um
+    // restart (quando todos os dados em memória se perdem) não volte a ser válido
+    private final long initialValue = System.currentTimeMillis();
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<ChangeCounter> findById(String id) {
+        ChangeCounter counter = new ChangeCounter();
+        counter.setId(id);
+        counter.setValue(counterFor(id).get());
+        return Optional.of(counter);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        counters.remove(id);
+    }
+
+    @Override
+    public void increment(String id) {
+        counterFor(id).incrementAndGet();
+    }
+
+    @Override
+    public void incrementAll(Collection<String> ids) {
+        ids.forEach(this::increment);
+    }
+
+    private AtomicLong counterFor(String id) {
+        return counters.computeIfAbsent(id, key -> new AtomicLong(initialValue));
+    }
+}
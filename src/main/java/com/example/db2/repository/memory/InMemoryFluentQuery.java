@@ -0,0 +1,160 @@
+package com.example.db2.repository.memory;
+
+import java.beans.PropertyDescriptor;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.util.Assert;
+
+// FetchableFluentQuery usada por findBy(Example, ...) nos repositórios em memória. Cada instância é
+// imutável: sortBy, limit, as e project devolvem uma nova consulta. Os documentos vêm da fonte já
+// filtrados pelo exemplo (e copiados), então a projeção pode limpar as propriedades não pedidas
+final class InMemoryFluentQuery<S, R> implements FluentQuery.FetchableFluentQuery<R> {
+
+    private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+    private final Supplier<Stream<S>> source;
+    private final Function<Sort, Comparator<? super S>> comparators;
+    private final Class<R> resultType;
+    private final Sort sort;
+    private final int limit;                // 0 = sem limite
+    private final Set<String> properties;   // null = documento completo
+
+    private InMemoryFluentQuery(Supplier<Stream<S>> source, Function<Sort, Comparator<? super S>> comparators,
+            Class<R> resultType, Sort sort, int limit, Set<String> properties) {
+        this.source = source;
+        this.comparators = comparators;
+        this.resultType = resultType;
+        this.sort = sort;
+        this.limit = limit;
+        this.properties = properties;
+    }
+
+    static <S> InMemoryFluentQuery<S, S> of(Supplier<Stream<S>> source,
+            Function<Sort, Comparator<? super S>> comparators, Class<S> probeType) {
+        return new InMemoryFluentQuery<>(source, comparators, probeType, Sort.unsorted(), 0, null);
+    }
+
+    @Override
+    public FetchableFluentQuery<R> sortBy(Sort sort) {
+        Assert.notNull(sort, "Sort must not be null");
+        return new InMemoryFluentQuery<>(source, comparators, resultType, this.sort.and(sort), limit, properties);
+    }
+
+    @Override
+    public FetchableFluentQuery<R> limit(int limit) {
+        Assert.isTrue(limit >= 0, "Limit must not be negative");
+        return new InMemoryFluentQuery<>(source, comparators, resultType, sort, limit, properties);
+    }
+
+    @Override
+    public <N> FetchableFluentQuery<N> as(Class<N> resultType) {
+        Assert.notNull(resultType, "Result type must not be null");
+        return new InMemoryFluentQuery<>(source, comparators, resultType, sort, limit, properties);
+    }
+
+    @Override
+    public FetchableFluentQuery<R> project(Collection<String> properties) {
+        Assert.notNull(properties, "Projection properties must not be null");
+        return new InMemoryFluentQuery<>(source, comparators, resultType, sort, limit, new LinkedHashSet<>(properties));
+    }
+
+    @Override
+    public R oneValue() {
+        List<R> results = sorted(sort).limit(2).map(this::convert).toList();
+        if (results.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1);
+        }
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    @Override
+    public R firstValue() {
+        return sorted(sort).findFirst().map(this::convert).orElse(null);
+    }
+
+    @Override
+    public List<R> all() {
+        return stream().toList();
+    }
+
+    @Override
+    public Page<R> page(Pageable pageable) {
+        Assert.notNull(pageable, "Pageable must not be null");
+        List<S> matches = sorted(sort.and(pageable.getSort())).toList();
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(matches.stream().map(this::convert).toList(), pageable, matches.size());
+        }
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return new PageImpl<>(matches.subList(from, to).stream().map(this::convert).toList(), pageable, matches.size());
+    }
+
+    @Override
+    public Stream<R> stream() {
+        return sorted(sort).map(this::convert);
+    }
+
+    @Override
+    public long count() {
+        return limited(source.get()).count();
+    }
+
+    @Override
+    public boolean exists() {
+        return source.get().findAny().isPresent();
+    }
+
+    private Stream<S> sorted(Sort order) {
+        Stream<S> matches = source.get();
+        if (order.isSorted()) {
+            matches = matches.sorted(comparators.apply(order));
+        }
+        return limited(matches);
+    }
+
+    private Stream<S> limited(Stream<S> matches) {
+        return limit > 0 ? matches.limit(limit) : matches;
+    }
+
+    private R convert(S document) {
+        if (properties != null) {
+            // Assim como na projeção do Mongo, o ID acompanha sempre o documento
+            BeanWrapper wrapper = new BeanWrapperImpl(document);
+            for (PropertyDescriptor descriptor : wrapper.getPropertyDescriptors()) {
+                String name = descriptor.getName();
+                if (descriptor.getWriteMethod() != null && !descriptor.getPropertyType().isPrimitive()
+                        && !"id".equals(name) && !properties.contains(name)) {
+                    wrapper.setPropertyValue(name, null);
+                }
+            }
+        }
+
+        if (resultType.isInstance(document)) {
+            return resultType.cast(document);
+        }
+        if (resultType.isInterface()) {
+            return PROJECTIONS.createProjection(resultType, document);
+        }
+        R result = BeanUtils.instantiateClass(resultType);
+        BeanUtils.copyProperties(document, result);
+        return result;
+    }
+}
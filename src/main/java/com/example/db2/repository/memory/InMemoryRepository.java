@@ -0,0 +1,470 @@
+package com.example.db2.repository.memory;
+
+import java.beans.PropertyDescriptor;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.data.support.ExampleMatcherAccessor;
+import org.springframework.util.Assert;
+
+import com.example.db2.repository.EntityVersion;
+
+// Base dos repositórios em memória. Os documentos ficam em um mapa concorrente ordenado pelo ID
+// (ObjectIds crescem com o tempo, então a ordem equivale à ordem natural do Mongo) e os índices
+// secundários guardam conjuntos imutáveis de IDs, substituídos a cada escrita (copy-on-write).
+// Leituras não usam locks; escritas no mesmo documento são serializadas por lock striping.
+abstract class InMemoryRepository<T> implements MongoRepository<T, String> {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final ConcurrentSkipListMap<String, T> documents = new ConcurrentSkipListMap<>();
+    private final List<HashIndex<T>> indexes = new ArrayList<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    protected InMemoryRepository() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    protected abstract String getId(T entity);
+
+    protected abstract void setId(T entity, String id);
+
+    protected abstract Long getVersion(T entity);
+
+    protected abstract void setVersion(T entity, Long version);
+
+    // Os chamadores recebem e entregam cópias, como aconteceria com documentos lidos do banco
+    protected abstract T copy(T entity);
+
+    protected HashIndex<T> addIndex(Function<T, Object> keyExtractor) {
+        HashIndex<T> index = new HashIndex<>(keyExtractor);
+        indexes.add(index);
+        return index;
+    }
+
+    protected Stream<T> lookup(HashIndex<T> index, Object key) {
+        // O índice pode estar momentaneamente à frente ou atrás do mapa principal, então a chave é conferida de novo
+        return index.get(key).stream()
+                .map(documents::get)
+                .filter(Objects::nonNull)
+                .filter(entity -> Objects.equals(index.keyOf(entity), key))
+                .map(this::copy);
+    }
+
+    protected Stream<T> scan() {
+        return documents.values().stream().map(this::copy);
+    }
+
+    protected <E extends T> Page<E> page(Stream<E> matches, Pageable pageable) {
+        List<E> sorted = matches.sorted(comparatorFor(pageable.getSort())).toList();
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(sorted, pageable, sorted.size());
+        }
+        int from = (int) Math.min(pageable.getOffset(), sorted.size());
+        int to = Math.min(from + pageable.getPageSize(), sorted.size());
+        return new PageImpl<>(sorted.subList(from, to), pageable, sorted.size());
+    }
+
+    // Emula consultas derivadas que retornam Optional: mais de um resultado é um erro
+    protected static <E> Optional<E> single(Stream<E> matches) {
+        List<E> results = matches.limit(2).toList();
+        if (results.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1);
+        }
+        return results.stream().findFirst();
+    }
+
+    protected static boolean within(Range<LocalDate> range, LocalDate value) {
+        if (value == null) {
+            return false;
+        }
+        Range.Bound<LocalDate> lower = range.getLowerBound();
+        Range.Bound<LocalDate> upper = range.getUpperBound();
+        if (lower.getValue().isPresent()) {
+            int comparison = value.compareTo(lower.getValue().get());
+            if (comparison < 0 || (comparison == 0 && !lower.isInclusive())) {
+                return false;
+            }
+        }
+        if (upper.getValue().isPresent()) {
+            int comparison = value.compareTo(upper.getValue().get());
+            if (comparison > 0 || (comparison == 0 && !upper.isInclusive())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Segue a semântica do @Version do Spring Data: sem versão é uma inserção, com versão é uma
+    // atualização que só acontece se a versão ainda for a armazenada
+    @Override
+    public <S extends T> S save(S entity) {
+        Assert.notNull(entity, "Entity must not be null");
+        if (getId(entity) == null) {
+            setId(entity, new ObjectId().toHexString());
+        }
+        String id = getId(entity);
+        synchronized (lockFor(id)) {
+            T current = documents.get(id);
+            Long version = getVersion(entity);
+            if (version == null) {
+                if (current != null) {
+                    throw new DuplicateKeyException("Documento já existente: " + id);
+                }
+                setVersion(entity, 0L);
+            } else {
+                if (current == null || !version.equals(getVersion(current))) {
+                    throw new OptimisticLockingFailureException("Versão desatualizada do documento: " + id);
+                }
+                setVersion(entity, version + 1);
+            }
+            store(id, copy(entity));
+        }
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) {
+            saved.add(save(entity));
+        }
+        return saved;
+    }
+
+    @Override
+    public <S extends T> S insert(S entity) {
+        Assert.notNull(entity, "Entity must not be null");
+        setVersion(entity, null);
+        return save(entity);
+    }
+
+    @Override
+    public <S extends T> List<S> insert(Iterable<S> entities) {
+        List<S> inserted = new ArrayList<>();
+        for (S entity : entities) {
+            inserted.add(insert(entity));
+        }
+        return inserted;
+    }
+
+    @Override
+    public Optional<T> findById(String id) {
+        Assert.notNull(id, "The given id must not be null");
+        return Optional.ofNullable(documents.get(id)).map(this::copy);
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        Assert.notNull(id, "The given id must not be null");
+        return documents.containsKey(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        return scan().toList();
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<String> ids) {
+        Set<String> unique = new HashSet<>();
+        ids.forEach(unique::add);
+        return unique.stream()
+                .map(documents::get)
+                .filter(Objects::nonNull)
+                .map(this::copy)
+                .toList();
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        return scan().sorted(comparatorFor(sort)).toList();
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        return page(scan(), pageable);
+    }
+
+    @Override
+    public long count() {
+        return documents.size();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        Assert.notNull(id, "The given id must not be null");
+        remove(id);
+    }
+
+    @Override
+    public void delete(T entity) {
+        Assert.notNull(entity, "Entity must not be null");
+        String id = getId(entity);
+        if (id == null) {
+            return;
+        }
+        synchronized (lockFor(id)) {
+            // Como no MongoDB, a remoção filtra por id e versão: documento ausente ou com outra versão
+            // significa que ele foi alterado ou removido desde a leitura
+            T current = documents.get(id);
+            if (current == null || !Objects.equals(getVersion(entity), getVersion(current))) {
+                throw new OptimisticLockingFailureException("Documento alterado ou removido: " + id);
+            }
+            remove(id);
+        }
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(this::remove);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        documents.keySet().forEach(this::remove);
+    }
+
+    // Como no SimpleMongoRepository, retorna o primeiro documento encontrado na ordem natural
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        return matching(example).findFirst();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        return matching(example).toList();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        return matching(example).sorted(comparatorFor(sort)).toList();
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return page(matching(example), pageable);
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        return matching(example).count();
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        return matching(example).findAny().isPresent();
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        Assert.notNull(queryFunction, "Query function must not be null");
+        return queryFunction.apply(InMemoryFluentQuery.of(() -> matching(example), this::comparatorFor, example.getProbeType()));
+    }
+
+    private void store(String id, T stored) {
+        synchronized (lockFor(id)) {
+            T previous = documents.put(id, stored);
+            for (HashIndex<T> index : indexes) {
+                index.update(id, previous, stored);
+            }
+        }
+    }
+
+    protected Optional<EntityVersion> versionOf(String id) {
+        Assert.notNull(id, "The given id must not be null");
+        T current = documents.get(id);
+        if (current == null) {
+            return Optional.empty();
+        }
+        Long version = getVersion(current);
+        EntityVersion projection = () -> version;
+        return Optional.of(projection);
+    }
+
+    private void remove(String id) {
+        if (id == null) {
+            return;
+        }
+        synchronized (lockFor(id)) {
+            T previous = documents.remove(id);
+            if (previous != null) {
+                for (HashIndex<T> index : indexes) {
+                    index.update(id, previous, null);
+                }
+            }
+        }
+    }
+
+    private Object lockFor(String id) {
+        return locks[Math.floorMod(id.hashCode(), LOCK_STRIPES)];
+    }
+
+    private Comparator<T> comparatorFor(Sort sort) {
+        Comparator<T> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            String property = order.getProperty();
+            Comparator<T> byProperty = (a, b) -> compareValues(propertyOf(a, property), propertyOf(b, property));
+            comparator = comparator.thenComparing(order.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return comparator;
+    }
+
+    private static Object propertyOf(Object entity, String property) {
+        return new BeanWrapperImpl(entity).getPropertyValue(property);
+    }
+
+    // Assim como no Mongo, valores nulos vêm antes dos demais na ordem crescente
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object a, Object b) {
+        if (a == b) {
+            return 0;
+        }
+        if (a == null) {
+            return -1;
+        }
+        if (b == null) {
+            return 1;
+        }
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    // Avalia o exemplo propriedade a propriedade seguindo o ExampleMatcher: propriedades ignoradas,
+    // tratamento de nulos, transformadores de valor, comparação de strings (exata, prefixo, sufixo,
+    // trecho ou regex, com ou sem maiúsculas) e combinação ALL/ANY
+    private <S extends T> Stream<S> matching(Example<S> example) {
+        Assert.notNull(example, "Example must not be null");
+        ExampleMatcher matcher = example.getMatcher();
+        ExampleMatcherAccessor accessor = new ExampleMatcherAccessor(matcher);
+        BeanWrapper probe = new BeanWrapperImpl(example.getProbe());
+
+        List<Predicate<Object>> conditions = new ArrayList<>();
+        for (PropertyDescriptor descriptor : probe.getPropertyDescriptors()) {
+            String path = descriptor.getName();
+            if (descriptor.getReadMethod() == null || "class".equals(path) || accessor.isIgnoredPath(path)) {
+                continue;
+            }
+            Optional<Object> value = accessor.getValueTransformerForPath(path)
+                    .apply(Optional.ofNullable(probe.getPropertyValue(path)));
+            if (value.isEmpty()) {
+                if (accessor.getNullHandler() == ExampleMatcher.NullHandler.INCLUDE) {
+                    conditions.add(entity -> propertyOf(entity, path) == null);
+                }
+                continue;
+            }
+            Predicate<Object> matches = valueMatcher(accessor, path, value.get());
+            conditions.add(entity -> matches.test(propertyOf(entity, path)));
+        }
+
+        Predicate<Object> combined = matcher.isAllMatching() || conditions.isEmpty()
+                ? entity -> conditions.stream().allMatch(condition -> condition.test(entity))
+                : entity -> conditions.stream().anyMatch(condition -> condition.test(entity));
+        Class<S> type = example.getProbeType();
+        return scan().filter(type::isInstance).map(type::cast).filter(combined);
+    }
+
+    private static Predicate<Object> valueMatcher(ExampleMatcherAccessor accessor, String path, Object expected) {
+        if (!(expected instanceof String text)) {
+            return actual -> Objects.equals(expected, actual);
+        }
+
+        boolean ignoreCase = accessor.isIgnoreCaseForPath(path);
+        ExampleMatcher.StringMatcher stringMatcher = accessor.getStringMatcherForPath(path);
+        if (stringMatcher == ExampleMatcher.StringMatcher.REGEX) {
+            Pattern pattern = Pattern.compile(text, ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+            return actual -> actual instanceof String candidate && pattern.matcher(candidate).find();
+        }
+
+        String wanted = ignoreCase ? text.toLowerCase(Locale.ROOT) : text;
+        return actual -> {
+            if (!(actual instanceof String candidate)) {
+                return false;
+            }
+            String value = ignoreCase ? candidate.toLowerCase(Locale.ROOT) : candidate;
+            return switch (stringMatcher) {
+                case STARTING -> value.startsWith(wanted);
+                case ENDING -> value.endsWith(wanted);
+                case CONTAINING -> value.contains(wanted);
+                default -> value.equals(wanted);
+            };
+        };
+    }
+
+    protected static final class HashIndex<T> {
+        // ConcurrentHashMap não aceita chaves nulas
+        private static final Object NULL_KEY = new Object();
+
+        private final Function<T, Object> keyExtractor;
+        private final ConcurrentHashMap<Object, Set<String>> entries = new ConcurrentHashMap<>();
+
+        private HashIndex(Function<T, Object> keyExtractor) {
+            this.keyExtractor = keyExtractor;
+        }
+
+        Object keyOf(T entity) {
+            return keyExtractor.apply(entity);
+        }
+
+        Set<String> get(Object key) {
+            return entries.getOrDefault(key == null ? NULL_KEY : key, Collections.emptySet());
+        }
+
+        void update(String id, T previous, T current) {
+            Object previousKey = previous == null ? null : keyOf(previous);
+            Object currentKey = current == null ? null : keyOf(current);
+            if (previous != null && current != null && Objects.equals(previousKey, currentKey)) {
+                return;
+            }
+            if (previous != null) {
+                entries.computeIfPresent(previousKey == null ? NULL_KEY : previousKey, (k, ids) -> {
+                    Set<String> updated = new HashSet<>(ids);
+                    updated.remove(id);
+                    return updated.isEmpty() ? null : Collections.unmodifiableSet(updated);
+                });
+            }
+            if (current != null) {
+                entries.compute(currentKey == null ? NULL_KEY : currentKey, (k, ids) -> {
+                    Set<String> updated = ids == null ? new HashSet<>() : new HashSet<>(ids);
+                    updated.add(id);
+                    return Collections.unmodifiableSet(updated);
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.db2.service;
+
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.db2.analytics.CatalogSnapshot;
+import com.example.db2.model.Author;
+import com.example.db2.model.Book;
+import com.example.db2.repository.AuthorRepository;
+import com.example.db2.repository.BookRepository;
+
+// Mantém o snapshot colunar usado pelas consultas analíticas, reconstruído periodicamente
+// a partir de cursores sobre as coleções, para que essas leituras não concorram com o tráfego
+// transacional no Mongo.
+@Service
+public class CatalogSnapshotService {
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private volatile CatalogSnapshot snapshot;
+
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    refresh();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.snapshot.refresh-interval:PT5M}",
+            initialDelayString = "${analytics.snapshot.refresh-interval:PT5M}")
+    public void refresh() {
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder();
+        try (Stream<Author> authors = authorRepository.streamAllBy()) {
+            authors.forEach(builder::addAuthor);
+        }
+        try (Stream<Book> books = bookRepository.streamAllBy()) {
+            books.forEach(builder::addBook);
+        }
+        snapshot = builder.build();
+    }
+}
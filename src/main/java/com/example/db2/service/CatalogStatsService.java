@@ -0,0 +1,229 @@
+package com.example.db2.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.db2.dto.CatalogStatsResponse;
+import com.example.db2.model.Author;
+import com.example.db2.model.Book;
+import com.example.db2.model.CatalogStat;
+import com.example.db2.repository.BookBulkResult;
+import com.example.db2.repository.CatalogStatRepository;
+
+// Mantém os contadores materializados em catalog_stats. Cada escrita aplica um delta ($inc)
+// no banco e no snapshot em memória, de onde as leituras são servidas. O snapshot é recarregado
+// periodicamente (deltas de outras instâncias), sem perder os deltas locais aplicados durante a
+// leitura, e a reconciliação recalcula tudo a partir das coleções de origem para corrigir desvios.
+// A correção também é aplicada como $inc, para não sobrescrever os deltas que outras escritas
+// gravarem enquanto as agregações executam.
+@Service
+public class CatalogStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogStatsService.class);
+
+    @Autowired
+    private CatalogStatRepository catalogStatRepository;
+
+    // facet -> chave -> contagem; null até o primeiro carregamento
+    private volatile Map<String, Map<String, Long>> snapshot;
+
+    // As escritas aplicam o delta no snapshot e no banco sob a trava de leitura, e o refresh lê o
+    // banco e troca o snapshot sob a de escrita. Assim todo delta local ou já está no que o refresh
+    // leu, ou é aplicado ao snapshot novo; nenhum é perdido na troca
+    private final ReadWriteLock updateLock = new ReentrantReadWriteLock();
+
+    public CatalogStatsResponse getStats() {
+        Map<String, Map<String, Long>> current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return new CatalogStatsResponse(
+                nonZero(current.get(CatalogStat.BOOKS_BY_GENRE)),
+                nonZero(current.get(CatalogStat.AUTHORS_BY_NATIONALITY)),
+                nonZero(current.get(CatalogStat.BOOKS_BY_AUTHOR)));
+    }
+
+    public void bookCreated(Book book) {
+        increment(CatalogStat.BOOKS_BY_GENRE, book.getGenre(), 1);
+        increment(CatalogStat.BOOKS_BY_AUTHOR, book.getAuthorId(), 1);
+    }
+
+    public void bookUpdated(String previousAuthorId, String previousGenre, Book book) {
+        if (!Objects.equals(previousGenre, book.getGenre())) {
+            increment(CatalogStat.BOOKS_BY_GENRE, previousGenre, -1);
+            increment(CatalogStat.BOOKS_BY_GENRE, book.getGenre(), 1);
+        }
+        if (!Objects.equals(previousAuthorId, book.getAuthorId())) {
+            increment(CatalogStat.BOOKS_BY_AUTHOR, previousAuthorId, -1);
+            increment(CatalogStat.BOOKS_BY_AUTHOR, book.getAuthorId(), 1);
+        }
+    }
+
+    // Lote de PUT /api/books/bulk: os deltas de todos os livros são somados por chave e gravados
+    // com um único $inc por contador, em uma única escrita em lote
+    public void booksChanged(List<BookBulkResult.Change> changes) {
+        Map<String, CatalogStat> deltas = new HashMap<>();
+        for (BookBulkResult.Change change : changes) {
+            if (!Objects.equals(change.previousGenre(), change.genre())) {
+                addDelta(deltas, CatalogStat.BOOKS_BY_GENRE, change.previousGenre(), -1);
+                addDelta(deltas, CatalogStat.BOOKS_BY_GENRE, change.genre(), 1);
+            }
+            if (!Objects.equals(change.previousAuthorId(), change.authorId())) {
+                addDelta(deltas, CatalogStat.BOOKS_BY_AUTHOR, change.previousAuthorId(), -1);
+                addDelta(deltas, CatalogStat.BOOKS_BY_AUTHOR, change.authorId(), 1);
+            }
+        }
+
+        List<CatalogStat> nonZero = deltas.values().stream().filter(delta -> delta.getCount() != 0).toList();
+        if (nonZero.isEmpty()) {
+            return;
+        }
+        updateLock.readLock().lock();
+        try {
+            for (CatalogStat delta : nonZero) {
+                applyToSnapshot(delta.getFacet(), delta.getKey(), delta.getCount());
+            }
+            catalogStatRepository.incrementAll(nonZero);
+        } catch (DataAccessException e) {
+            // As escritas do lote já foram feitas; a reconciliação periódica corrige os contadores
+            log.warn("Falha ao atualizar os contadores de um lote de {} livros", changes.size(), e);
+        } finally {
+            updateLock.readLock().unlock();
+        }
+    }
+
+    public void bookDeleted(Book book) {
+        increment(CatalogStat.BOOKS_BY_GENRE, book.getGenre(), -1);
+        increment(CatalogStat.BOOKS_BY_AUTHOR, book.getAuthorId(), -1);
+    }
+
+    public void authorCreated(Author author) {
+        increment(CatalogStat.AUTHORS_BY_NATIONALITY, author.getNationality(), 1);
+    }
+
+    public void authorUpdated(String previousNationality, Author author) {
+        if (!Objects.equals(previousNationality, author.getNationality())) {
+            increment(CatalogStat.AUTHORS_BY_NATIONALITY, previousNationality, -1);
+            increment(CatalogStat.AUTHORS_BY_NATIONALITY, author.getNationality(), 1);
+        }
+    }
+
+    public void authorDeleted(Author author, List<Book> books) {
+        increment(CatalogStat.AUTHORS_BY_NATIONALITY, author.getNationality(), -1);
+        for (Book book : books) {
+            bookDeleted(book);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.stats.refresh-interval:PT30S}",
+            initialDelayString = "${catalog.stats.refresh-interval:PT30S}")
+    public void refresh() {
+        updateLock.writeLock().lock();
+        try {
+            snapshot = toSnapshot(catalogStatRepository.findAll());
+        } finally {
+            updateLock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.stats.reconcile-interval:PT10M}",
+            initialDelayString = "${catalog.stats.reconcile-initial-delay:PT10S}")
+    public void reconcile() {
+        Map<String, CatalogStat> expected = byId(catalogStatRepository.computeFromSources());
+        Map<String, CatalogStat> current = byId(catalogStatRepository.findAll());
+
+        // Uma escrita entre as duas leituras ainda pode deixar um desvio de uma unidade, que a
+        // próxima reconciliação corrige; nenhum delta aplicado depois delas é perdido
+        List<CatalogStat> deltas = new ArrayList<>();
+        expected.forEach((id, stat) -> {
+            CatalogStat existing = current.get(id);
+            long delta = stat.getCount() - (existing == null ? 0 : existing.getCount());
+            if (delta != 0) {
+                deltas.add(new CatalogStat(stat.getFacet(), stat.getKey(), delta));
+            }
+        });
+        current.forEach((id, stat) -> {
+            if (!expected.containsKey(id) && stat.getCount() != 0) {
+                deltas.add(new CatalogStat(stat.getFacet(), stat.getKey(), -stat.getCount()));
+            }
+        });
+
+        catalogStatRepository.incrementAll(deltas);
+        refresh();
+    }
+
+    private void increment(String facet, String key, long delta) {
+        if (key == null) {
+            return; // Valores ausentes não são contabilizados
+        }
+
+        updateLock.readLock().lock();
+        try {
+            applyToSnapshot(facet, key, delta);
+            catalogStatRepository.increment(facet, key, delta);
+        } catch (DataAccessException e) {
+            // A escrita principal já foi feita; a reconciliação periódica corrige o contador
+            log.warn("Falha ao atualizar o contador {}:{}", facet, key, e);
+        } finally {
+            updateLock.readLock().unlock();
+        }
+    }
+
+    private void applyToSnapshot(String facet, String key, long delta) {
+        Map<String, Map<String, Long>> current = snapshot;
+        if (current != null) {
+            current.computeIfAbsent(facet, f -> new ConcurrentHashMap<>()).merge(key, delta, Long::sum);
+        }
+    }
+
+    private static void addDelta(Map<String, CatalogStat> deltas, String facet, String key, long delta) {
+        if (key == null) {
+            return; // Valores ausentes não são contabilizados
+        }
+        deltas.merge(CatalogStat.idOf(facet, key), new CatalogStat(facet, key, delta),
+                (sum, next) -> new CatalogStat(facet, key, sum.getCount() + next.getCount()));
+    }
+
+    private static Map<String, CatalogStat> byId(List<CatalogStat> stats) {
+        Map<String, CatalogStat> result = new HashMap<>();
+        for (CatalogStat stat : stats) {
+            result.put(stat.getId(), stat);
+        }
+        return result;
+    }
+
+    private static Map<String, Map<String, Long>> toSnapshot(List<CatalogStat> stats) {
+        Map<String, Map<String, Long>> result = new ConcurrentHashMap<>();
+        for (CatalogStat stat : stats) {
+            result.computeIfAbsent(stat.getFacet(), f -> new ConcurrentHashMap<>()).put(stat.getKey(), stat.getCount());
+        }
+        return result;
+    }
+
+    private static Map<String, Long> nonZero(Map<String, Long> counts) {
+        Map<String, Long> result = new TreeMap<>();
+        if (counts != null) {
+            counts.forEach((key, count) -> {
+                if (count > 0) {
+                    result.put(key, count);
+                }
+            });
+        }
+        return result;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.db2.tracing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+// Abre um span (catalog.repository) em cada chamada aos repositórios, nomeado como
+// BookRepository.findByAuthorId. Os comandos enviados ao Mongo aparecem como spans filhos.
+// Métodos que retornam Stream são medidos apenas até a abertura do cursor
+@Aspect
+@Component
+public class RepositoryObservationAspect {
+
+    private static final String APPLICATION_PACKAGE = "com.example.db2";
+
+    private final ObservationRegistry observationRegistry;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public RepositoryObservationAspect(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object observe(ProceedingJoinPoint joinPoint) throws Throwable {
+        String repository = repositoryNames.computeIfAbsent(joinPoint.getTarget().getClass(), RepositoryObservationAspect::nameOf);
+        String method = joinPoint.getSignature().getName();
+        return Observation.createNotStarted("catalog.repository", observationRegistry)
+                .contextualName(repository + "." + method)
+                .lowCardinalityKeyValue("repository", repository)
+                .lowCardinalityKeyValue("method", method)
+                .observeChecked(joinPoint::proceed);
+    }
+
+    // O alvo de um repositório do Spring Data é um proxy; o nome vem da interface da aplicação
+    private static String nameOf(Class<?> type) {
+        for (Class<?> candidate : ClassUtils.getAllInterfacesForClassAsSet(type)) {
+            if (candidate.getPackageName().startsWith(APPLICATION_PACKAGE)) {
+                return candidate.getSimpleName();
+            }
+        }
+        return type.getSimpleName();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.db2.tracing;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+// Conversor JSON padrão com um span (catalog.serialization) em torno da leitura do corpo da
+// requisição e da escrita da resposta, separando o tempo do Jackson do tempo do controller
+public class TracingJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final ObservationRegistry observationRegistry;
+
+    public TracingJackson2HttpMessageConverter(ObjectMapper objectMapper, ObservationRegistry observationRegistry) {
+        super(objectMapper);
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return observation("read", type.getTypeName())
+                .observeChecked(() -> super.read(type, contextClass, inputMessage));
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        Object value = object instanceof MappingJacksonValue container ? container.getValue() : object;
+        observation("write", value != null ? value.getClass().getSimpleName() : "null")
+                .observeChecked(() -> {
+                    super.writeInternal(object, type, outputMessage);
+                    return null;
+                });
+    }
+
+    private Observation observation(String operation, String type) {
+        return Observation.createNotStarted("catalog.serialization", observationRegistry)
+                .contextualName("json " + operation + " " + type)
+                .lowCardinalityKeyValue("operation", operation)
+                .lowCardinalityKeyValue("type", type);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.db2.analytics;
+
+import com.example.db2.model.Author;
+import com.example.db2.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CatalogSnapshotTest {
+
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    public void setUp() {
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder()
+                .addAuthor(author("a1", "Brazilian"))
+                .addAuthor(author("a2", "British"));
+
+        builder.addBook(book("a1", "Fiction", LocalDate.of(2020, 1, 1)));
+        builder.addBook(book("a1", "Fiction", LocalDate.of(2020, 12, 31)));
+        builder.addBook(book("a1", "Poetry", LocalDate.of(2021, 6, 1)));
+        builder.addBook(book("a2", "Fiction", LocalDate.of(2019, 3, 15)));
+        builder.addBook(book("unknown", null, null)); // Autor inexistente, sem gênero e sem data
+
+        snapshot = builder.build();
+    }
+
+    @Test
+    public void testCountWithFilters() {
+        assertThat(snapshot.getBookCount()).isEqualTo(5);
+        assertThat(snapshot.count(new BookFilter(null, null, null, null, null))).isEqualTo(5);
+        assertThat(snapshot.count(new BookFilter("Fiction", null, null, null, null))).isEqualTo(3);
+        assertThat(snapshot.count(new BookFilter("Fiction", "Brazilian", null, null, null))).isEqualTo(2);
+        assertThat(snapshot.count(new BookFilter(null, null, null, 2020, 2020))).isEqualTo(2);
+        assertThat(snapshot.count(new BookFilter(null, null, "a2", null, null))).isEqualTo(1);
+        assertThat(snapshot.count(new BookFilter("Drama", null, null, null, null))).isZero();
+    }
+
+    @Test
+    public void testCountWithYearsOutsideSnapshot() {
+        // Anos fora do intervalo de LocalDate são limitados aos anos do snapshot, sem exceção
+        assertThat(snapshot.count(new BookFilter(null, null, null, Integer.MIN_VALUE, Integer.MAX_VALUE))).isEqualTo(4);
+        assertThat(snapshot.count(new BookFilter(null, null, null, -1_000_000_000, 2020))).isEqualTo(3);
+        assertThat(snapshot.count(new BookFilter(null, null, null, 2021, 1_000_000_000))).isEqualTo(1);
+        assertThat(snapshot.count(new BookFilter(null, null, null, 2022, null))).isZero();
+        assertThat(snapshot.count(new BookFilter(null, null, null, null, 2018))).isZero();
+        assertThat(snapshot.count(new BookFilter(null, null, null, 2021, 2020))).isZero();
+    }
+
+    @Test
+    public void testGroupBy() {
+        BookFilter all = new BookFilter(null, null, null, null, null);
+
+        assertThat(snapshot.groupBy(CatalogSnapshot.Dimension.YEAR, all))
+                .containsExactlyInAnyOrderEntriesOf(Map.of("2019", 1L, "2020", 2L, "2021", 1L));
+        assertThat(snapshot.groupBy(CatalogSnapshot.Dimension.NATIONALITY, all))
+                .containsExactly(Map.entry("Brazilian", 3L), Map.entry("British", 1L));
+        // O livro sem gênero fica fora dos grupos, mas entra na contagem
+        assertThat(snapshot.groupBy(CatalogSnapshot.Dimension.GENRE, all))
+                .containsExactly(Map.entry("Fiction", 3L), Map.entry("Poetry", 1L));
+        assertThat(snapshot.count(all)).isEqualTo(5);
+        assertThat(snapshot.groupBy(CatalogSnapshot.Dimension.AUTHOR, new BookFilter("Fiction", null, null, null, null)))
+                .containsExactly(Map.entry("a1", 2L), Map.entry("a2", 1L));
+    }
+
+    private static Author author(String id, String nationality) {
+        Author author = new Author();
+        author.setId(id);
+        author.setNationality(nationality);
+        return author;
+    }
+
+    private static Book book(String authorId, String genre, LocalDate publicationDate) {
+        Book book = new Book();
+        book.setAuthorId(authorId);
+        book.setGenre(genre);
+        book.setPublicationDate(publicationDate);
+        return book;
+    }
+}
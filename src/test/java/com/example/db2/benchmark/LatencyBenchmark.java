@@ -0,0 +1,104 @@
+package com.example.db2.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+// Apoio aos benchmarks opcionais (-Dbenchmark=true): mede operações sequenciais e grava a tabela
+// de resultados em target/benchmarks/<nome>.md, além de imprimi-la, para que cada execução fique
+// registrada junto com a JVM e o momento em que rodou
+public final class LatencyBenchmark {
+
+    private static final Path RESULTS_DIRECTORY = Path.of("target", "benchmarks");
+
+    private final String name;
+    private final List<Result> results = new ArrayList<>();
+
+    public LatencyBenchmark(String name) {
+        this.name = name;
+    }
+
+    // Latência de cada operação, em nanossegundos
+    public static long[] measure(int operations, IntOperation operation) throws Exception {
+        long[] latencies = new long[operations];
+        for (int i = 0; i < operations; i++) {
+            long start = System.nanoTime();
+            operation.run(i);
+            latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    // Junta as latências de várias rodadas de uma mesma configuração
+    public static long[] concat(List<long[]> rounds) {
+        return rounds.stream().flatMapToLong(LongStream::of).toArray();
+    }
+
+    public Result add(String configuration, String operation, long[] latencies) {
+        Result result = Result.of(configuration, operation, latencies);
+        results.add(result);
+        return result;
+    }
+
+    // Imprime e grava os resultados acumulados; notes entra no arquivo antes da tabela
+    public Path record(String... notes) {
+        StringBuilder table = new StringBuilder()
+                .append("| configuração | op | p50 (µs) | p99 (µs) | máx (µs) | ops/s |\n")
+                .append("|---|---|---:|---:|---:|---:|\n");
+        for (Result result : results) {
+            table.append(String.format("| %s | %s | %d | %d | %d | %.0f |%n",
+                    result.configuration(), result.operation(), result.p50Micros(), result.p99Micros(),
+                    result.maxMicros(), result.throughput()));
+        }
+        System.out.print(table);
+
+        StringBuilder file = new StringBuilder("# ").append(name).append("\n\n")
+                .append("- Execução: ").append(Instant.now()).append('\n')
+                .append("- JVM: ").append(System.getProperty("java.vm.name")).append(' ')
+                .append(System.getProperty("java.version")).append(", ")
+                .append(Runtime.getRuntime().availableProcessors()).append(" processadores\n");
+        for (String note : notes) {
+            file.append("- ").append(note).append('\n');
+        }
+        file.append('\n').append(table);
+
+        try {
+            Files.createDirectories(RESULTS_DIRECTORY);
+            Path path = RESULTS_DIRECTORY.resolve(name + ".md");
+            Files.writeString(path, file, StandardCharsets.UTF_8);
+            return path;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Percentis sobre operações sequenciais; a vazão é a quantidade de operações pela soma das latências
+    public record Result(String configuration, String operation, long p50Micros, long p99Micros, long maxMicros,
+            long totalNanos, double throughput) {
+
+        static Result of(String configuration, String operation, long[] latencies) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int operations = sorted.length;
+            long total = LongStream.of(sorted).sum();
+            return new Result(configuration, operation,
+                    sorted[operations / 2] / 1000,
+                    sorted[(int) (operations * 0.99)] / 1000,
+                    sorted[operations - 1] / 1000,
+                    total,
+                    operations / (total / 1_000_000_000.0));
+        }
+    }
+
+    @FunctionalInterface
+    public interface IntOperation {
+        void run(int i) throws Exception;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.db2.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonResponseCacheTest {
+
+    @Test
+    public void testGetValidatesVersion() {
+        JsonResponseCache cache = new JsonResponseCache(DataSize.ofKilobytes(64), false, "", DataSize.ofBytes(0));
+        cache.put("book:1", "\"1\"", json(100));
+
+        assertThat(cache.get("book:1", "\"1\"")).isNotNull();
+        assertThat(cache.get("book:1", "\"2\"")).isNull();
+        assertThat(cache.get("book:1", "\"1\"")).isNull(); // A entrada de versão antiga foi descartada
+        assertThat(cache.getUsedBytes()).isZero();
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedWithinBudget() {
+        JsonResponseCache cache = new JsonResponseCache(DataSize.ofBytes(10_000), false, "", DataSize.ofBytes(0));
+        cache.put("book:1", "\"1\"", json(2000));
+        cache.put("book:2", "\"1\"", json(2000));
+        cache.put("book:3", "\"1\"", json(2000));
+        cache.get("book:1", "\"1\""); // book:2 passa a ser a usada há mais tempo
+        cache.put("book:4", "\"1\"", json(2000));
+        cache.put("book:5", "\"1\"", json(2000));
+
+        assertThat(cache.getUsedBytes()).isLessThanOrEqualTo(10_000);
+        assertThat(cache.get("book:2", "\"1\"")).isNull();
+        assertThat(cache.get("book:1", "\"1\"")).isNotNull();
+        assertThat(cache.get("book:5", "\"1\"")).isNotNull();
+
+        // Respostas maiores que um quarto do orçamento não são guardadas
+        cache.put("book:6", "\"1\"", json(5000));
+        assertThat(cache.get("book:6", "\"1\"")).isNull();
+    }
+
+    @Test
+    public void testStoresGzipForLargeResponses() throws IOException {
+        JsonResponseCache cache = new JsonResponseCache(DataSize.ofKilobytes(64), true, "", DataSize.ofBytes(0));
+        byte[] json = json(4000);
+        CachedJson entry = cache.put("author:1", "\"1-1\"", json);
+
+        assertThat(entry.gzip()).isNotNull().hasSizeLessThan(json.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(entry.gzip()))) {
+            assertThat(in.readAllBytes()).isEqualTo(json);
+        }
+        assertThat(cache.put("author:2", "\"1-1\"", json(100)).gzip()).isNull();
+    }
+
+    @Test
+    public void testWarmRestartFromSnapshot(@TempDir Path directory) {
+        Path file = directory.resolve("response-cache.snapshot");
+        JsonResponseCache cache = new JsonResponseCache(DataSize.ofKilobytes(64), true, file.toString(), DataSize.ofKilobytes(64));
+        byte[] book = json(2000);
+        byte[] author = json(200);
+        cache.put("book:1", "\"3\"", book);
+        cache.put("author:1", "\"1-7\"", author);
+        cache.saveSnapshot();
+
+        // Nova instância, como após um reinício: as entradas são lidas do arquivo na primeira falta
+        JsonResponseCache restarted = new JsonResponseCache(DataSize.ofKilobytes(64), true, file.toString(), DataSize.ofKilobytes(64));
+        CachedJson restored = restarted.get("book:1", "\"3\"");
+        assertThat(restored).isNotNull();
+        assertThat(restored.json()).isEqualTo(book);
+        assertThat(restored.gzip()).isNotNull();
+        assertThat(restarted.getUsedBytes()).isPositive();
+
+        // O autor mudou desde o snapshot: a entrada antiga é descartada
+        assertThat(restarted.get("author:1", "\"1-8\"")).isNull();
+        assertThat(restarted.get("author:1", "\"1-7\"")).isNull();
+    }
+
+    @Test
+    public void testSnapshotKeepsUnreadEntries(@TempDir Path directory) {
+        Path file = directory.resolve("response-cache.snapshot");
+        JsonResponseCache cache = new JsonResponseCache(DataSize.ofKilobytes(64), true, file.toString(), DataSize.ofKilobytes(64));
+        cache.put("book:1", "\"1\"", json(2000));
+        cache.put("book:2", "\"1\"", json(300));
+        cache.saveSnapshot();
+
+        // Logo após o reinício apenas book:1 foi lido; a gravação mantém book:2 do snapshot anterior
+        JsonResponseCache restarted = new JsonResponseCache(DataSize.ofKilobytes(64), true, file.toString(), DataSize.ofKilobytes(64));
+        assertThat(restarted.get("book:1", "\"1\"")).isNotNull();
+        restarted.put("book:3", "\"1\"", json(300));
+        restarted.saveSnapshot();
+
+        JsonResponseCache again = new JsonResponseCache(DataSize.ofKilobytes(64), true, file.toString(), DataSize.ofKilobytes(64));
+        assertThat(again.get("book:1", "\"1\"")).isNotNull();
+        assertThat(again.get("book:2", "\"1\"").json()).isEqualTo(json(300));
+        assertThat(again.get("book:3", "\"1\"")).isNotNull();
+
+        // Uma gravação antes de qualquer falta também preserva o snapshot anterior
+        JsonResponseCache idle = new JsonResponseCache(DataSize.ofKilobytes(64), true, file.toString(), DataSize.ofKilobytes(64));
+        idle.saveSnapshot();
+        JsonResponseCache afterIdle = new JsonResponseCache(DataSize.ofKilobytes(64), true, file.toString(), DataSize.ofKilobytes(64));
+        assertThat(afterIdle.get("book:2", "\"1\"")).isNotNull();
+    }
+
+    @Test
+    public void testCorruptedSnapshotEntryIsDiscarded(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("response-cache.snapshot");
+        JsonResponseCache cache = new JsonResponseCache(DataSize.ofKilobytes(64), true, file.toString(), DataSize.ofKilobytes(64));
+        cache.put("book:1", "\"1\"", json(2000));
+        cache.saveSnapshot();
+
+        // Altera o último byte, que pertence aos dados compactados da entrada
+        byte[] content = Files.readAllBytes(file);
+        content[content.length - 1] ^= 0x5A;
+        Files.write(file, content);
+
+        JsonResponseCache restarted = new JsonResponseCache(DataSize.ofKilobytes(64), true, file.toString(), DataSize.ofKilobytes(64));
+        assertThat(restarted.get("book:1", "\"1\"")).isNull();
+        assertThat(restarted.getUsedBytes()).isZero();
+    }
+
+    @Test
+    public void testConcurrentAccessAcrossSegments() throws InterruptedException {
+        JsonResponseCache cache = new JsonResponseCache(DataSize.ofMegabytes(64), false, "", DataSize.ofBytes(0));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    String key = "book:" + (i % 200);
+                    if (cache.get(key, "\"1\"") == null) {
+                        cache.put(key, "\"1\"", json(1000));
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        // Nenhuma entrada ficou duplicada, e cada thread perdeu no máximo uma leitura por chave
+        assertThat(cache.getUsedBytes()).isEqualTo(200 * new CachedJson("\"1\"", json(1000), null).size());
+        assertThat(cache.getHits()).isGreaterThanOrEqualTo(8 * 5000 - 8 * 200);
+    }
+
+    @Test
+    public void testSnapshotOrdersEntriesAcrossSegments(@TempDir Path directory) {
+        Path file = directory.resolve("response-cache.snapshot");
+        byte[] json = json(1000);
+        long entrySize = 13 + "book:00".length() + "\"1\"".length() + json.length;
+        JsonResponseCache cache = new JsonResponseCache(DataSize.ofMegabytes(64), false, file.toString(), DataSize.ofBytes(2 * entrySize));
+        for (int i = 10; i < 50; i++) {
+            cache.put("book:" + i, "\"1\"", json);
+        }
+        cache.get("book:17", "\"1\"");
+        cache.get("book:42", "\"1\""); // As duas mais recentes, em segmentos quaisquer
+        cache.saveSnapshot();
+
+        JsonResponseCache restarted = new JsonResponseCache(DataSize.ofMegabytes(64), false, file.toString(), DataSize.ofBytes(2 * entrySize));
+        assertThat(restarted.get("book:42", "\"1\"")).isNotNull();
+        assertThat(restarted.get("book:17", "\"1\"")).isNotNull();
+        assertThat(restarted.get("book:49", "\"1\"")).isNull();
+    }
+
+    private static byte[] json(int size) {
+        return ("{\"title\":\"" + "a".repeat(size - 12) + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+}
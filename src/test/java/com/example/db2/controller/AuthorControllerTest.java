@@ -1,7 +1,10 @@
 package com.example.db2.controller;
 
+import com.example.db2.cache.JsonResponseCache;
 import com.example.db2.model.Author;
+import com.example.db2.model.Book;
 import com.example.db2.repository.AuthorRepository;
+import com.example.db2.repository.BookRepository;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,11 +15,17 @@ import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.HttpStatus;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -28,6 +37,12 @@ public class AuthorControllerTest {
     @Autowired
     private AuthorRepository authorRepository;
 
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JsonResponseCache responseCache;
+
     private Author testAuthor;
 
     @BeforeEach
@@ -157,4 +172,289 @@ public class AuthorControllerTest {
             .statusCode(HttpStatus.NOT_FOUND.value())
             .body(equalTo("Erro: autor não encontrado."));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetAllAuthorsNotModified() {
+        String etag = given()
+            .when()
+            .get("/api/authors")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .extract().header("ETag");
+
+        given()
+            .header("If-None-Match", etag)
+            .when()
+            .get("/api/authors")
+            .then()
+            .statusCode(HttpStatus.NOT_MODIFIED.value());
+
+        // Criar um autor pela API incrementa o contador de alterações da coleção
+        Map<String, Object> newAuthor = new HashMap<>();
+        newAuthor.put("name", "John Smith");
+        given()
+            .contentType(ContentType.JSON)
+            .body(newAuthor)
+            .when()
+            .post("/api/authors")
+            .then()
+            .statusCode(HttpStatus.OK.value());
+
+        given()
+            .header("If-None-Match", etag)
+            .when()
+            .get("/api/authors")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("size()", equalTo(2));
+    }
+
+    @Test
+    public void testGetAuthorByIdWithFields() {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        book.setAuthorId(testAuthor.getId());
+        book.setGenre("Fiction");
+        book.setIsbn("1234567890");
+        bookRepository.save(book);
+
+        given()
+            .queryParam("fields", "name,books")
+            .queryParam("bookFields", "title")
+            .when()
+            .get("/api/authors/{id}", testAuthor.getId())
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("name", equalTo("Jane Doe"))
+            .body("$", not(hasKey("nationality")))
+            .body("books.size()", equalTo(1))
+            .body("books[0].title", equalTo("Test Book"))
+            .body("books[0]", not(hasKey("genre")));
+
+        // Sem "books" em fields os livros nem são consultados
+        given()
+            .queryParam("fields", "name")
+            .when()
+            .get("/api/authors/{id}", testAuthor.getId())
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("$", not(hasKey("books")));
+
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    public void testGetAuthorByIdWithPaginatedBooks() {
+        for (int i = 1; i <= 3; i++) {
+            Book book = new Book();
+            book.setTitle("Book " + i);
+            book.setAuthorId(testAuthor.getId());
+            book.setPublicationDate(LocalDate.of(2000 + i, 1, 1));
+            bookRepository.save(book);
+        }
+
+        String cursor = given()
+            .queryParam("booksLimit", 2)
+            .when()
+            .get("/api/authors/{id}", testAuthor.getId())
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("books.size()", equalTo(2))
+            .body("books[0].title", equalTo("Book 1"))
+            .body("books[1].title", equalTo("Book 2"))
+            .body("booksNextCursor", notNullValue())
+            .extract()
+            .path("booksNextCursor");
+
+        given()
+            .queryParam("booksLimit", 2)
+            .queryParam("booksAfter", cursor)
+            .when()
+            .get("/api/authors/{id}", testAuthor.getId())
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("books.size()", equalTo(1))
+            .body("books[0].title", equalTo("Book 3"))
+            .body("$", not(hasKey("booksNextCursor")));
+
+        // Cursor gerado para outra ordenação é rejeitado
+        given()
+            .queryParam("booksLimit", 2)
+            .queryParam("booksAfter", cursor)
+            .queryParam("booksSort", "title")
+            .when()
+            .get("/api/authors/{id}", testAuthor.getId())
+            .then()
+            .statusCode(HttpStatus.BAD_REQUEST.value());
+
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    public void testStreamAuthorById() {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        book.setAuthorId(testAuthor.getId());
+        book.setGenre("Fiction");
+        bookRepository.save(book);
+
+        given()
+            .queryParam("stream", true)
+            .queryParam("bookFields", "title")
+            .when()
+            .get("/api/authors/{id}", testAuthor.getId())
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .contentType(ContentType.JSON)
+            .body("name", equalTo("Jane Doe"))
+            .body("birthDate", equalTo("1980-01-01"))
+            .body("books.size()", equalTo(1))
+            .body("books[0].title", equalTo("Test Book"))
+            .body("books[0]", not(hasKey("genre")));
+
+        // Campo inválido recebe a mesma mensagem do detalhe sem streaming
+        given()
+            .queryParam("stream", true)
+            .queryParam("bookFields", "unknown")
+            .when()
+            .get("/api/authors/{id}", testAuthor.getId())
+            .then()
+            .statusCode(HttpStatus.BAD_REQUEST.value())
+            .body(equalTo("Erro: Campo inválido: unknown."));
+
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    public void testGetAuthorsWithBookCounts() {
+        Author otherAuthor = new Author();
+        otherAuthor.setName("John Smith");
+        otherAuthor = authorRepository.save(otherAuthor);
+
+        for (int i = 1; i <= 2; i++) {
+            Book book = new Book();
+            book.setTitle("Book " + i);
+            book.setAuthorId(testAuthor.getId());
+            book.setPublicationDate(LocalDate.of(2000 + i, 1, 1));
+            bookRepository.save(book);
+        }
+
+        String cursor = given()
+            .queryParam("withBookCounts", true)
+            .queryParam("sort", "bookCount")
+            .queryParam("limit", 1)
+            .queryParam("includeLatestPublicationDate", true)
+            .when()
+            .get("/api/authors")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("authors.size()", equalTo(1))
+            .body("authors[0].name", equalTo("Jane Doe"))
+            .body("authors[0].bookCount", equalTo(2))
+            .body("authors[0].latestPublicationDate", equalTo("2002-01-01"))
+            .body("nextCursor", notNullValue())
+            .extract()
+            .path("nextCursor");
+
+        given()
+            .queryParam("withBookCounts", true)
+            .queryParam("sort", "bookCount")
+            .queryParam("limit", 1)
+            .queryParam("after", cursor)
+            .when()
+            .get("/api/authors")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("authors.size()", equalTo(1))
+            .body("authors[0].id", equalTo(otherAuthor.getId()))
+            .body("authors[0].bookCount", equalTo(0))
+            .body("$", not(hasKey("nextCursor")));
+
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    public void testGetAuthorsWithBookCountsDefaultsToIdOrder() {
+        Author otherAuthor = new Author();
+        otherAuthor.setName("John Smith");
+        otherAuthor = authorRepository.save(otherAuthor);
+
+        // Ordenado pela contagem, o autor com livro viria primeiro: a ordem padrão é a do ID
+        Book book = new Book();
+        book.setTitle("Test Book");
+        book.setAuthorId(otherAuthor.getId());
+        bookRepository.save(book);
+
+        List<String> ids = new ArrayList<>(List.of(testAuthor.getId(), otherAuthor.getId()));
+        Collections.sort(ids);
+        given()
+            .queryParam("withBookCounts", true)
+            .when()
+            .get("/api/authors")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("authors.id", equalTo(ids))
+            .body("authors.find { it.id == '" + otherAuthor.getId() + "' }.bookCount", equalTo(1));
+
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    public void testCachedAuthorSurvivesOtherAuthorsBookWrites() {
+        Author otherAuthor = new Author();
+        otherAuthor.setName("John Smith");
+        otherAuthor = authorRepository.save(otherAuthor);
+
+        long hits = responseCache.getHits();
+        for (int i = 0; i < 2; i++) { // A segunda leitura é servida do cache
+            given()
+                .when()
+                .get("/api/authors/{id}", testAuthor.getId())
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("books.size()", equalTo(0));
+        }
+        assertThat(responseCache.getHits()).isEqualTo(hits + 1);
+
+        // Um livro de outro autor não invalida a entrada
+        Map<String, Object> otherBook = new HashMap<>();
+        otherBook.put("title", "Other Book");
+        otherBook.put("authorId", otherAuthor.getId());
+        given()
+            .contentType(ContentType.JSON)
+            .body(otherBook)
+            .when()
+            .post("/api/books")
+            .then()
+            .statusCode(HttpStatus.OK.value());
+
+        given()
+            .when()
+            .get("/api/authors/{id}", testAuthor.getId())
+            .then()
+            .statusCode(HttpStatus.OK.value());
+        assertThat(responseCache.getHits()).isEqualTo(hits + 2);
+
+        // Um livro do próprio autor invalida
+        Map<String, Object> ownBook = new HashMap<>();
+        ownBook.put("title", "Own Book");
+        ownBook.put("authorId", testAuthor.getId());
+        given()
+            .contentType(ContentType.JSON)
+            .body(ownBook)
+            .when()
+            .post("/api/books")
+            .then()
+            .statusCode(HttpStatus.OK.value());
+
+        given()
+            .when()
+            .get("/api/authors/{id}", testAuthor.getId())
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("books.size()", equalTo(1));
+        assertThat(responseCache.getHits()).isEqualTo(hits + 2);
+
+        bookRepository.deleteAll();
+    }
+}
@@ -9,17 +9,27 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.HttpStatus;
 
+import com.example.db2.cache.JsonResponseCache;
 import com.example.db2.model.Author;
 import com.example.db2.model.Book;
 import com.example.db2.repository.AuthorRepository;
 import com.example.db2.repository.BookRepository;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -33,6 +43,9 @@ public class BookControllerTest {
     @Autowired
     private AuthorRepository authorRepository;
 
+    @Autowired
+    private JsonResponseCache responseCache;
+
     private Author testAuthor;
 
     @BeforeEach
@@ -151,6 +164,48 @@ public class BookControllerTest {
                 .body("isbn", equalTo("2222222222")); // Novo atributo
     }
 
+    @Test
+    public void testConcurrentUpdatesConflict() throws Exception {
+        Book book = new Book();
+        book.setTitle("Old Title");
+        book.setAuthorId(testAuthor.getId());
+        Book savedBook = bookRepository.save(book);
+        long initialVersion = bookRepository.findVersionById(savedBook.getId()).orElseThrow().getVersion();
+
+        // Atualizações simultâneas do mesmo livro: cada uma termina em 200 ou em 409, nunca em 500
+        int requests = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        try {
+            for (int i = 0; i < requests; i++) {
+                Map<String, Object> updatedBook = new HashMap<>();
+                updatedBook.put("title", "Title " + i);
+                updatedBook.put("authorId", testAuthor.getId());
+                statuses.add(executor.submit(() -> given()
+                        .contentType(ContentType.JSON)
+                        .body(updatedBook)
+                        .when()
+                        .put("/api/books/{id}", savedBook.getId())
+                        .then()
+                        .extract()
+                        .statusCode()));
+            }
+            int ok = 0;
+            for (Future<Integer> status : statuses) {
+                int code = status.get(30, TimeUnit.SECONDS);
+                assertThat(code).isIn(HttpStatus.OK.value(), HttpStatus.CONFLICT.value());
+                if (code == HttpStatus.OK.value()) {
+                    ok++;
+                }
+            }
+            // Só as respostas 200 gravaram: cada uma avançou a versão exatamente uma vez
+            long finalVersion = bookRepository.findVersionById(savedBook.getId()).orElseThrow().getVersion();
+            assertThat(finalVersion - initialVersion).isEqualTo(ok);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     public void testDeleteBook() {
         // Insere um livro e depois o deleta
@@ -175,4 +230,389 @@ public class BookControllerTest {
                 .then()
                 .statusCode(HttpStatus.NOT_FOUND.value());
     }
+
+    @Test
+    public void testGetBooksByPublicationDate() {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        book.setAuthorId(testAuthor.getId());
+        book.setPublicationDate(LocalDate.parse("2024-01-01"));
+        book.setGenre("Fiction");
+        bookRepository.save(book);
+
+        Book oldBook = new Book();
+        oldBook.setTitle("Old Book");
+        oldBook.setAuthorId(testAuthor.getId());
+        oldBook.setPublicationDate(LocalDate.parse("1990-01-01"));
+        oldBook.setGenre("Fiction");
+        bookRepository.save(oldBook);
+
+        given()
+                .queryParam("from", "2000-01-01")
+                .queryParam("to", "2024-01-01")
+                .when()
+                .get("/api/books/published")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("content.size()", equalTo(1))
+                .body("content[0].title", equalTo("Test Book"))
+                .body("page.totalElements", equalTo(1));
+
+        given()
+                .when()
+                .get("/api/books/histogram")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("size()", equalTo(2))
+                .body("[0].year", equalTo(1990))
+                .body("[1].year", equalTo(2024));
+    }
+
+    @Test
+    public void testGetBooksByPublicationDateWithoutDates() {
+        given()
+                .when()
+                .get("/api/books/published")
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body(equalTo("Erro: Informe ao menos uma das datas (from ou to)."));
+    }
+
+    @Test
+    public void testGetBookByIdNotModified() {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        book.setAuthorId(testAuthor.getId());
+        Book savedBook = bookRepository.save(book);
+
+        String etag = given()
+                .when()
+                .get("/api/books/{id}", savedBook.getId())
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("ETag", notNullValue())
+                .extract().header("ETag");
+
+        // Com o mesmo ETag o livro não é reenviado
+        given()
+                .header("If-None-Match", etag)
+                .when()
+                .get("/api/books/{id}", savedBook.getId())
+                .then()
+                .statusCode(HttpStatus.NOT_MODIFIED.value());
+
+        // Após uma atualização a versão muda e o ETag antigo deixa de valer
+        Map<String, Object> updatedBook = new HashMap<>();
+        updatedBook.put("title", "Updated Title");
+        updatedBook.put("authorId", testAuthor.getId());
+        given()
+                .contentType(ContentType.JSON)
+                .body(updatedBook)
+                .when()
+                .put("/api/books/{id}", savedBook.getId())
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        given()
+                .header("If-None-Match", etag)
+                .when()
+                .get("/api/books/{id}", savedBook.getId())
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("title", equalTo("Updated Title"));
+    }
+
+    @Test
+    public void testGetBookByIdETagPerEncoding() {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        book.setAuthorId(testAuthor.getId());
+        Book savedBook = bookRepository.save(book);
+
+        String identityETag = given()
+                .header("Accept-Encoding", "identity")
+                .when()
+                .get("/api/books/{id}", savedBook.getId())
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("Vary", equalTo("Accept-Encoding"))
+                .extract().header("ETag");
+        String gzipETag = given()
+                .header("Accept-Encoding", "gzip")
+                .when()
+                .get("/api/books/{id}", savedBook.getId())
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().header("ETag");
+
+        // Os corpos podem ter bytes diferentes, então os ETags fortes também diferem
+        assertThat(gzipETag).isNotEqualTo(identityETag).endsWith("-gz\"");
+
+        // O ETag de uma codificação não revalida a outra
+        given()
+                .header("Accept-Encoding", "gzip")
+                .header("If-None-Match", identityETag)
+                .when()
+                .get("/api/books/{id}", savedBook.getId())
+                .then()
+                .statusCode(HttpStatus.OK.value());
+        given()
+                .header("Accept-Encoding", "gzip")
+                .header("If-None-Match", gzipETag)
+                .when()
+                .get("/api/books/{id}", savedBook.getId())
+                .then()
+                .statusCode(HttpStatus.NOT_MODIFIED.value());
+    }
+
+    @Test
+    public void testGetBookByIdWithFields() {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        book.setAuthorId(testAuthor.getId());
+        book.setPublicationDate(LocalDate.parse("2024-01-01"));
+        book.setGenre("Fiction");
+        book.setIsbn("1234567890");
+        Book savedBook = bookRepository.save(book);
+
+        byte[] full = given()
+                .when()
+                .get("/api/books/{id}", savedBook.getId())
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().asByteArray();
+
+        byte[] sparse = given()
+                .queryParam("fields", "title,isbn")
+                .when()
+                .get("/api/books/{id}", savedBook.getId())
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("title", equalTo("Test Book"))
+                .body("isbn", equalTo("1234567890"))
+                .body("$", not(hasKey("genre")))
+                .body("$", not(hasKey("authorId")))
+                .extract().asByteArray();
+
+        // Apenas os campos pedidos trafegam na resposta
+        assertThat(sparse.length).isLessThan(full.length);
+
+        given()
+                .queryParam("fields", "title,unknown")
+                .when()
+                .get("/api/books/{id}", savedBook.getId())
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body(equalTo("Erro: Campo inválido: unknown."));
+    }
+
+    @Test
+    public void testBulkUpdateBooks() {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        book.setAuthorId(testAuthor.getId());
+        book.setGenre("Fiction");
+        book.setIsbn("1234567890");
+        book = bookRepository.save(book);
+
+        Map<String, Object> byId = new HashMap<>();
+        byId.put("id", book.getId());
+        byId.put("genre", "Poetry");
+
+        Map<String, Object> upsertByIsbn = new HashMap<>();
+        upsertByIsbn.put("isbn", "0987654321");
+        upsertByIsbn.put("title", "New Book");
+        upsertByIsbn.put("authorId", testAuthor.getId());
+        upsertByIsbn.put("upsert", true);
+
+        Map<String, Object> unknownAuthor = new HashMap<>();
+        unknownAuthor.put("isbn", "1234567890");
+        unknownAuthor.put("authorId", "nonexistent-author-id");
+
+        // Localiza o mesmo livro pelo ISBN sem alterar nenhum valor: conta como localizado, não como alterado
+        Map<String, Object> unchanged = new HashMap<>();
+        unchanged.put("isbn", "1234567890");
+        unchanged.put("title", "Test Book");
+
+        // Sincroniza os contadores com o livro gravado direto no repositório
+        given()
+                .when()
+                .post("/api/stats/reconcile")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("booksByGenre.Fiction", equalTo(1));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(List.of(byId, upsertByIsbn, unknownAuthor, unchanged))
+                .when()
+                .put("/api/books/bulk")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("matched", equalTo(2))
+                .body("modified", equalTo(1))
+                .body("upserted", equalTo(1))
+                .body("errors.size()", equalTo(1))
+                .body("errors[0].index", equalTo(2))
+                .body("errors[0].message", equalTo("Erro: Autor não encontrado."));
+
+        // Os contadores recebem os deltas do lote sem recalcular a coleção
+        given()
+                .when()
+                .get("/api/stats")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("booksByGenre.Poetry", equalTo(1))
+                .body("booksByGenre", not(hasKey("Fiction")))
+                .body("booksByAuthor.'" + testAuthor.getId() + "'", equalTo(2));
+
+        Book updated = bookRepository.findById(book.getId()).orElseThrow();
+        assertThat(updated.getGenre()).isEqualTo("Poetry");
+        assertThat(updated.getTitle()).isEqualTo("Test Book"); // Campos não informados são preservados
+        assertThat(updated.getVersion()).isGreaterThan(book.getVersion());
+        assertThat(bookRepository.findByIsbn("0987654321")).hasSize(1);
+    }
+
+    @Test
+    public void testBulkUpsertDuplicateKey() {
+        Map<String, Object> first = new HashMap<>();
+        first.put("isbn", "0987654321");
+        first.put("title", "New Book");
+        first.put("authorId", testAuthor.getId());
+        first.put("upsert", true);
+
+        Map<String, Object> second = new HashMap<>(first);
+        second.put("title", "Other Title");
+
+        given()
+                .when()
+                .post("/api/stats/reconcile")
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        // O segundo item com o mesmo ISBN é rejeitado em vez de inserir outro livro
+        given()
+                .contentType(ContentType.JSON)
+                .body(List.of(first, second))
+                .when()
+                .put("/api/books/bulk")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("upserted", equalTo(1))
+                .body("errors.size()", equalTo(1))
+                .body("errors[0].index", equalTo(1))
+                .body("errors[0].message", equalTo("Erro: O livro já foi inserido por outro item do lote."));
+
+        assertThat(bookRepository.findByIsbn("0987654321"))
+                .extracting(Book::getTitle)
+                .containsExactly("New Book");
+        given()
+                .when()
+                .get("/api/stats")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("booksByAuthor.'" + testAuthor.getId() + "'", equalTo(1));
+    }
+
+    @Test
+    public void testInvalidDurabilityProfile() {
+        given()
+                .header("X-Durability-Profile", "reckless")
+                .when()
+                .get("/api/books")
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body(equalTo("Erro: Perfil de durabilidade inválido: reckless."));
+
+        given()
+                .header("X-Durability-Profile", "safe")
+                .when()
+                .get("/api/books")
+                .then()
+                .statusCode(HttpStatus.OK.value());
+    }
+
+    @Test
+    public void testGetBookByIdCacheInvalidatedByUpdate() {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        book.setAuthorId(testAuthor.getId());
+        Book savedBook = bookRepository.save(book);
+
+        long hits = responseCache.getHits();
+        for (int i = 0; i < 2; i++) { // A segunda leitura é servida do cache
+            given()
+                    .when()
+                    .get("/api/books/{id}", savedBook.getId())
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("title", equalTo("Test Book"));
+        }
+        assertThat(responseCache.getHits()).isEqualTo(hits + 1);
+
+        Map<String, Object> update = new HashMap<>();
+        update.put("title", "Updated Book");
+        update.put("authorId", testAuthor.getId());
+        given()
+                .contentType(ContentType.JSON)
+                .body(update)
+                .when()
+                .put("/api/books/{id}", savedBook.getId())
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        given()
+                .when()
+                .get("/api/books/{id}", savedBook.getId())
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("title", equalTo("Updated Book"));
+        assertThat(responseCache.getHits()).isEqualTo(hits + 1); // A entrada antiga não foi usada
+    }
+
+    @Test
+    public void testFilterBooks() {
+        for (String genre : new String[] { "Fiction", "Fiction", "Poetry" }) {
+            Book book = new Book();
+            book.setTitle(genre + " Book");
+            book.setAuthorId(testAuthor.getId());
+            book.setGenre(genre);
+            book.setPublicationDate(LocalDate.of(2020, 1, 1));
+            bookRepository.save(book);
+        }
+
+        given()
+                .queryParam("genre", "Fiction")
+                .queryParam("publishedFrom", "2019-01-01")
+                .when()
+                .get("/api/books")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("X-Query-Index", equalTo("publicationDate"))
+                .body("size()", equalTo(2))
+                .body("[0].genre", equalTo("Fiction"));
+
+        // genre e um prefixo vazio não são seletivos: nenhum hint é enviado
+        given()
+                .queryParam("genre", "Poetry")
+                .queryParam("titlePrefix", "")
+                .when()
+                .get("/api/books")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("X-Query-Index", equalTo("NONE"))
+                .body("size()", equalTo(1))
+                .body("[0].title", equalTo("Poetry Book"));
+
+        given()
+                .queryParam("authorId", testAuthor.getId())
+                .queryParam("titlePrefix", "Poe")
+                .when()
+                .get("/api/books")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("X-Query-Index", equalTo("author_title"))
+                .body("size()", equalTo(1))
+                .body("[0].title", equalTo("Poetry Book"));
+    }
 }
@@ -0,0 +1,55 @@
+package com.example.db2.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import com.example.db2.cache.JsonResponseCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CachedResponsesTest {
+
+    @Test
+    public void testAcceptsGzip() {
+        assertThat(CachedResponses.acceptsGzip("gzip")).isTrue();
+        assertThat(CachedResponses.acceptsGzip("br, GZIP;q=0.5")).isTrue();
+        assertThat(CachedResponses.acceptsGzip("*")).isTrue();
+        assertThat(CachedResponses.acceptsGzip("br, *;q=0.5")).isTrue();
+    }
+
+    @Test
+    public void testRejectsGzip() {
+        assertThat(CachedResponses.acceptsGzip(null)).isFalse();
+        assertThat(CachedResponses.acceptsGzip("identity")).isFalse();
+        assertThat(CachedResponses.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(CachedResponses.acceptsGzip("gzip; q=0.0, br")).isFalse();
+        assertThat(CachedResponses.acceptsGzip("gzip;q=0, *")).isFalse(); // gzip citado prevalece sobre "*"
+        assertThat(CachedResponses.acceptsGzip("*;q=0")).isFalse();
+        assertThat(CachedResponses.acceptsGzip("gzip;q=abc")).isFalse();
+    }
+
+    @Test
+    public void testETagPerEncoding() {
+        JsonResponseCache cache = new JsonResponseCache(DataSize.ofKilobytes(64), true, "", DataSize.ofBytes(0));
+        assertThat(CachedResponses.etag("\"3\"", request("gzip, br"), cache)).isEqualTo("\"3-gz\"");
+        assertThat(CachedResponses.etag("\"3-7\"", request("gzip"), cache)).isEqualTo("\"3-7-gz\"");
+        assertThat(CachedResponses.etag("\"3\"", request("gzip;q=0"), cache)).isEqualTo("\"3\"");
+        assertThat(CachedResponses.etag("\"3\"", request(null), cache)).isEqualTo("\"3\"");
+
+        // Sem compactação no cache o corpo é sempre o mesmo
+        JsonResponseCache identityOnly = new JsonResponseCache(DataSize.ofKilobytes(64), false, "", DataSize.ofBytes(0));
+        assertThat(CachedResponses.etag("\"3\"", request("gzip"), identityOnly)).isEqualTo("\"3\"");
+    }
+
+    private static WebRequest request(String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/1");
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return new ServletWebRequest(request);
+    }
+}
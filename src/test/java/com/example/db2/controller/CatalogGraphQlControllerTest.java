@@ -0,0 +1,149 @@
+package com.example.db2.controller;
+
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+
+import com.example.db2.model.Author;
+import com.example.db2.model.Book;
+import com.example.db2.repository.AuthorRepository;
+import com.example.db2.repository.BookRepository;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class CatalogGraphQlControllerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @BeforeEach
+    public void setUp() {
+        RestAssured.port = port;
+        bookRepository.deleteAll();
+        authorRepository.deleteAll();
+
+        Author author = new Author();
+        author.setName("Jane Doe");
+        author.setBirthDate(LocalDate.of(1980, 1, 1));
+        author = authorRepository.save(author);
+
+        for (String genre : new String[] { "Fiction", "Fiction", "Poetry" }) {
+            Book book = new Book();
+            book.setTitle(genre + " Book");
+            book.setAuthorId(author.getId());
+            book.setGenre(genre);
+            bookRepository.save(book);
+        }
+    }
+
+    @Test
+    public void testBooksWithAuthor() {
+        given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("query", "{ books(genre: \"Fiction\") { title author { name birthDate } } }"))
+            .when()
+            .post("/graphql")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("data.books.size()", equalTo(2))
+            .body("data.books[0].author.name", equalTo("Jane Doe"))
+            .body("data.books[1].author.birthDate", equalTo("1980-01-01"));
+    }
+
+    @Test
+    public void testAuthorsWithBooks() {
+        given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("query", "{ authors(limit: 10) { name version books(limit: 2) { genre } } }"))
+            .when()
+            .post("/graphql")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("data.authors.size()", equalTo(1))
+            .body("data.authors[0].version", equalTo(0))
+            .body("data.authors[0].books.size()", equalTo(2));
+    }
+
+    @Test
+    public void testNestedQueryWithDefaultLimits() {
+        // Os limites padrão cabem na complexidade máxima mesmo pedindo todos os campos
+        given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("query", "{ authors { id name birthDate nationality version "
+                    + "books { id title authorId publicationDate genre isbn version } } }"))
+            .when()
+            .post("/graphql")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("errors", equalTo(null))
+            .body("data.authors.size()", equalTo(1))
+            .body("data.authors[0].books.size()", equalTo(3));
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("query", "{ books { title author { name books { title } } } }"))
+            .when()
+            .post("/graphql")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("errors", equalTo(null))
+            .body("data.books.size()", equalTo(3));
+    }
+
+    @Test
+    public void testLargeBookListsTooComplex() {
+        // 1000 autores x 100 livros excede a complexidade máxima
+        given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("query", "{ authors(limit: 1000) { name books(limit: 100) { genre } } }"))
+            .when()
+            .post("/graphql")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("errors[0].message", notNullValue())
+            .body("data", equalTo(null));
+    }
+
+    @Test
+    public void testInvalidLimit() {
+        given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("query", "{ books(limit: 0) { title } }"))
+            .when()
+            .post("/graphql")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("errors[0].message", equalTo("limit deve estar entre 1 e 1000"))
+            .body("errors[0].extensions.classification", equalTo("BAD_REQUEST"));
+    }
+
+    @Test
+    public void testQueryTooDeep() {
+        given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("query", "{ authors { books { author { books { author { books { title } } } } } } }"))
+            .when()
+            .post("/graphql")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("errors[0].message", notNullValue())
+            .body("data", equalTo(null));
+    }
+}
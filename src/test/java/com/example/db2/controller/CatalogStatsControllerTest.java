@@ -0,0 +1,230 @@
+package com.example.db2.controller;
+
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+
+import com.example.db2.model.Book;
+import com.example.db2.repository.AuthorRepository;
+import com.example.db2.repository.BookRepository;
+import com.example.db2.service.CatalogStatsService;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class CatalogStatsControllerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private CatalogStatsService catalogStatsService;
+
+    @BeforeEach
+    public void setUp() {
+        RestAssured.port = port;
+        bookRepository.deleteAll();
+        authorRepository.deleteAll();
+
+        // Sincroniza os contadores com o banco vazio antes de cada teste
+        given()
+                .when()
+                .post("/api/stats/reconcile")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("booksByGenre", anEmptyMap());
+    }
+
+    @Test
+    public void testStatsFollowWrites() {
+        Map<String, Object> author = new HashMap<>();
+        author.put("name", "Jane Doe");
+        author.put("nationality", "Brazilian");
+        String authorId = given()
+                .contentType(ContentType.JSON)
+                .body(author)
+                .when()
+                .post("/api/authors")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().path("id");
+
+        Map<String, Object> book = new HashMap<>();
+        book.put("title", "Test Book");
+        book.put("authorId", authorId);
+        book.put("genre", "Fiction");
+        String bookId = given()
+                .contentType(ContentType.JSON)
+                .body(book)
+                .when()
+                .post("/api/books")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().path("id");
+
+        given()
+                .when()
+                .get("/api/stats")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("booksByGenre.Fiction", equalTo(1))
+                .body("authorsByNationality.Brazilian", equalTo(1))
+                .body("booksByAuthor.'" + authorId + "'", equalTo(1));
+
+        // Alterar o gênero move o livro entre os contadores
+        book.put("genre", "Poetry");
+        given()
+                .contentType(ContentType.JSON)
+                .body(book)
+                .when()
+                .put("/api/books/{id}", bookId)
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        given()
+                .when()
+                .get("/api/stats")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("booksByGenre.size()", equalTo(1))
+                .body("booksByGenre.Poetry", equalTo(1));
+
+        // Após remover o autor e seus livros, a reconciliação não encontra desvios
+        given()
+                .when()
+                .delete("/api/authors/{id}", authorId)
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        given()
+                .when()
+                .post("/api/stats/reconcile")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("booksByGenre", anEmptyMap())
+                .body("authorsByNationality", anEmptyMap())
+                .body("booksByAuthor", anEmptyMap());
+    }
+
+    @Test
+    public void testReconcileCorrectsDrift() {
+        // Livro gravado direto no repositório, sem passar pelos contadores
+        Book book = new Book();
+        book.setTitle("Drifted Book");
+        book.setGenre("Fiction");
+        bookRepository.save(book);
+
+        given()
+                .when()
+                .get("/api/stats")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("booksByGenre", anEmptyMap());
+
+        given()
+                .when()
+                .post("/api/stats/reconcile")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("booksByGenre.Fiction", equalTo(1));
+
+        // Um delta gravado depois da reconciliação é somado ao valor corrigido
+        Map<String, Object> author = new HashMap<>();
+        author.put("name", "Jane Doe");
+        String authorId = given()
+                .contentType(ContentType.JSON)
+                .body(author)
+                .when()
+                .post("/api/authors")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().path("id");
+
+        Map<String, Object> other = new HashMap<>();
+        other.put("title", "Other Book");
+        other.put("authorId", authorId);
+        other.put("genre", "Fiction");
+        given()
+                .contentType(ContentType.JSON)
+                .body(other)
+                .when()
+                .post("/api/books")
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        given()
+                .when()
+                .post("/api/stats/reconcile")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("booksByGenre.Fiction", equalTo(2))
+                .body("booksByAuthor.'" + authorId + "'", equalTo(1));
+    }
+
+    @Test
+    public void testRefreshKeepsConcurrentDeltas() throws Exception {
+        Map<String, Object> author = new HashMap<>();
+        author.put("name", "Jane Doe");
+        String authorId = given()
+                .contentType(ContentType.JSON)
+                .body(author)
+                .when()
+                .post("/api/authors")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().path("id");
+
+        // Recarrega o snapshot sem parar enquanto os livros são criados: nenhum delta pode se perder
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread refresher = new Thread(() -> {
+            while (writing.get()) {
+                catalogStatsService.refresh();
+            }
+        });
+        refresher.start();
+        int books = 50;
+        try {
+            for (int i = 0; i < books; i++) {
+                Map<String, Object> book = new HashMap<>();
+                book.put("title", "Book " + i);
+                book.put("authorId", authorId);
+                book.put("genre", "Fiction");
+                given()
+                        .contentType(ContentType.JSON)
+                        .body(book)
+                        .when()
+                        .post("/api/books")
+                        .then()
+                        .statusCode(HttpStatus.OK.value());
+            }
+        } finally {
+            writing.set(false);
+            refresher.join();
+        }
+
+        given()
+                .when()
+                .get("/api/stats")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("booksByGenre.Fiction", equalTo(books))
+                .body("booksByAuthor.'" + authorId + "'", equalTo(books));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.db2.durability;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.db2.benchmark.LatencyBenchmark;
+import com.example.db2.model.Book;
+import com.example.db2.repository.BookRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Mede o custo de cada perfil de durabilidade em escritas e leituras pelo repositório; a tabela é
+// gravada em target/benchmarks/durability-profiles.md. Não roda por padrão; para executar contra
+// um replica set local de um nó:
+//   mongod --replSet rs0 --dbpath /tmp/rs0 && mongosh --eval "rs.initiate()"
+//   ./mvnw test -Dtest=DurabilityBenchmarkTest -Dbenchmark=true \
+//       -Dspring.data.mongodb.uri="mongodb://localhost:27017/db2_benchmark?replicaSet=rs0"
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class DurabilityBenchmarkTest {
+
+    private static final int WARMUP = 500;
+    private static final int OPERATIONS = 5000;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @AfterEach
+    public void tearDown() {
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    public void benchmarkProfiles() throws Exception {
+        LatencyBenchmark benchmark = new LatencyBenchmark("durability-profiles");
+        List<DurabilityProfile> profiles = new ArrayList<>();
+        profiles.add(null); // Padrões da string de conexão
+        profiles.addAll(Arrays.asList(DurabilityProfile.values()));
+
+        for (DurabilityProfile profile : profiles) {
+            String name = profile == null ? "padrão" : profile.name().toLowerCase();
+            List<String> ids = new ArrayList<>();
+            DurabilityContext.set(profile);
+            try {
+                LatencyBenchmark.measure(WARMUP, i -> ids.add(bookRepository.save(newBook(i)).getId()));
+                benchmark.add(name, "save", LatencyBenchmark.measure(OPERATIONS, i -> ids.add(bookRepository.save(newBook(i)).getId())));
+                benchmark.add(name, "find", LatencyBenchmark.measure(OPERATIONS, i -> bookRepository.findById(ids.get(i))));
+            } finally {
+                DurabilityContext.clear();
+            }
+            bookRepository.deleteAll();
+        }
+        benchmark.record("Operações por perfil: " + WARMUP + " de aquecimento e " + OPERATIONS + " medidas",
+                "fast: w=1 sem journal, leitura local; safe: w=majority com journal, leitura majority");
+    }
+
+    private static Book newBook(int i) {
+        Book book = new Book();
+        book.setTitle("Benchmark " + i);
+        book.setAuthorId("benchmark-author");
+        book.setGenre(i % 2 == 0 ? "Fiction" : "Poetry");
+        book.setPublicationDate(LocalDate.of(2000, 1, 1).plusDays(i));
+        return book;
+    }
+}
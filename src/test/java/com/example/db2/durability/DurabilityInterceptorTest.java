@@ -0,0 +1,70 @@
+package com.example.db2.durability;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DurabilityInterceptorTest {
+
+    private final DurabilityInterceptor interceptor = new DurabilityInterceptor();
+
+    @AfterEach
+    public void tearDown() {
+        DurabilityContext.clear();
+    }
+
+    @Durability(DurabilityProfile.FAST)
+    public void annotatedEndpoint() {
+    }
+
+    public void plainEndpoint() {
+    }
+
+    @Test
+    public void testRequestWithoutProfileDoesNotInheritOne() throws Exception {
+        MockHttpServletRequest first = new MockHttpServletRequest();
+        first.addHeader(DurabilityProfile.HEADER, "safe");
+        assertThat(interceptor.preHandle(first, new MockHttpServletResponse(), handler("plainEndpoint"))).isTrue();
+        assertThat(DurabilityContext.current()).isEqualTo(DurabilityProfile.SAFE);
+
+        // Simula uma requisição anterior que não passou pelo afterCompletion nesta thread
+        MockHttpServletRequest second = new MockHttpServletRequest();
+        assertThat(interceptor.preHandle(second, new MockHttpServletResponse(), handler("plainEndpoint"))).isTrue();
+        assertThat(DurabilityContext.current()).isNull();
+    }
+
+    @Test
+    public void testAsyncRequestReleasesThread() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        Object handler = handler("annotatedEndpoint");
+        interceptor.preHandle(request, new MockHttpServletResponse(), handler);
+        assertThat(DurabilityContext.current()).isEqualTo(DurabilityProfile.FAST);
+
+        interceptor.afterConcurrentHandlingStarted(request, new MockHttpServletResponse(), handler);
+        assertThat(DurabilityContext.current()).isNull();
+    }
+
+    @Test
+    public void testTaskDecoratorPropagatesProfile() throws Exception {
+        DurabilityContext.set(DurabilityProfile.SAFE);
+        AtomicReference<DurabilityProfile> seen = new AtomicReference<>();
+        Runnable task = new DurabilityTaskDecorator().decorate(() -> seen.set(DurabilityContext.current()));
+        DurabilityContext.clear();
+
+        Thread worker = new Thread(task);
+        worker.start();
+        worker.join();
+
+        assertThat(seen.get()).isEqualTo(DurabilityProfile.SAFE);
+    }
+
+    private HandlerMethod handler(String method) throws NoSuchMethodException {
+        return new HandlerMethod(this, DurabilityInterceptorTest.class.getMethod(method));
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.db2.repository;
+
+import com.example.db2.model.Author;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Cenários executados contra os dois armazenamentos: o Mongo (AuthorRepositoryTest) e o em memória
+// (InMemoryAuthorRepositoryTest). Cada subclasse fornece o repositório a ser testado
+public abstract class AbstractAuthorRepositoryTest {
+
+    protected AuthorRepository authorRepository;
+
+    protected Author testAuthor;
+
+    protected abstract AuthorRepository createAuthorRepository();
+
+    @BeforeEach
+    public void setUp() {
+        authorRepository = createAuthorRepository();
+
+        // Limpa o repositório antes de cada teste para garantir um estado consistente
+        authorRepository.deleteAll();
+
+        // Cria um autor de teste para ser usado em diferentes cenários de teste
+        testAuthor = new Author();
+        testAuthor.setName("Jane Doe");
+        testAuthor.setBirthDate(LocalDate.of(1980, 1, 1));
+        testAuthor.setNationality("American");
+        testAuthor = authorRepository.save(testAuthor);  // Salva o autor de teste no repositório
+    }
+
+    @AfterEach
+    public void tearDown() {
+        // Limpa o repositório após cada teste para evitar interferência entre testes
+        authorRepository.deleteAll();
+    }
+
+    @Test
+    public void testSaveAuthor() {
+        // Teste para verificar se um autor pode ser salvo corretamente no repositório
+        Author author = new Author();
+        author.setName("John Smith");
+        author.setBirthDate(LocalDate.of(1990, 5, 15));
+        author.setNationality("British");
+
+        Author savedAuthor = authorRepository.save(author);
+
+        // Verifica se o autor salvo tem um ID não nulo e se os campos são os esperados
+        assertThat(savedAuthor.getId()).isNotNull();
+        assertThat(savedAuthor.getName()).isEqualTo("John Smith");
+        assertThat(savedAuthor.getBirthDate()).isEqualTo(LocalDate.of(1990, 5, 15));
+        assertThat(savedAuthor.getNationality()).isEqualTo("British");
+    }
+
+    @Test
+    public void testFindAllAuthors() {
+        // Teste para verificar se todos os autores podem ser recuperados
+        List<Author> authors = authorRepository.findAll();
+        
+        // Verifica se a lista de autores não está vazia e contém o autor de teste
+        assertThat(authors).isNotEmpty();
+        assertThat(authors).hasSize(1);
+        assertThat(authors.get(0).getName()).isEqualTo("Jane Doe");
+        assertThat(authors.get(0).getBirthDate()).isEqualTo(LocalDate.of(1980, 1, 1));
+        assertThat(authors.get(0).getNationality()).isEqualTo("American");
+    }
+
+    @Test
+    public void testFindAuthorById() {
+        // Teste para verificar se um autor pode ser encontrado pelo seu ID
+        Optional<Author> foundAuthor = authorRepository.findById(testAuthor.getId());
+        
+        // Verifica se o autor foi encontrado e se os campos estão corretos
+        assertThat(foundAuthor).isPresent();
+        assertThat(foundAuthor.get().getName()).isEqualTo("Jane Doe");
+        assertThat(foundAuthor.get().getBirthDate()).isEqualTo(LocalDate.of(1980, 1, 1));
+        assertThat(foundAuthor.get().getNationality()).isEqualTo("American");
+    }
+
+    @Test
+    public void testUpdateAuthor() {
+        // Teste para verificar se um autor pode ser atualizado corretamente
+        Optional<Author> optionalAuthor = authorRepository.findById(testAuthor.getId());
+        
+        assertThat(optionalAuthor).isPresent();
+
+        Author authorToUpdate = optionalAuthor.get();
+        authorToUpdate.setName("Jane Smith");
+        authorToUpdate.setBirthDate(LocalDate.of(1985, 7, 20));
+        authorToUpdate.setNationality("Canadian");
+        Author updatedAuthor = authorRepository.save(authorToUpdate);
+
+        // Verifica se os campos do autor foram atualizados corretamente
+        assertThat(updatedAuthor.getName()).isEqualTo("Jane Smith");
+        assertThat(updatedAuthor.getBirthDate()).isEqualTo(LocalDate.of(1985, 7, 20));
+        assertThat(updatedAuthor.getNationality()).isEqualTo("Canadian");
+    }
+
+    @Test
+    public void testDeleteAuthor() {
+        // Teste para verificar se um autor pode ser deletado corretamente
+        Optional<Author> foundAuthor = authorRepository.findById(testAuthor.getId());
+        assertThat(foundAuthor).isPresent();
+
+        authorRepository.delete(foundAuthor.get());
+        Optional<Author> deletedAuthor = authorRepository.findById(testAuthor.getId());
+        
+        // Verifica se o autor não está mais presente no repositório
+        assertThat(deletedAuthor).isNotPresent();
+    }
+
+    @Test
+    public void testFindByBirthDateBetween() {
+        // Teste para verificar a busca paginada de autores por período de nascimento
+        Author author = new Author();
+        author.setName("John Smith");
+        author.setBirthDate(LocalDate.of(1990, 5, 15));
+        authorRepository.save(author);
+
+        Page<Author> authors = authorRepository.findByBirthDateBetween(
+                Range.closed(LocalDate.of(1985, 1, 1), LocalDate.of(1995, 1, 1)), PageRequest.of(0, 10));
+
+        assertThat(authors.getTotalElements()).isEqualTo(1);
+        assertThat(authors.getContent().get(0).getName()).isEqualTo("John Smith");
+    }
+
+    @Test
+    public void testFindByExample() {
+        // Teste para verificar as consultas por exemplo com as regras do ExampleMatcher
+        Author author = new Author();
+        author.setName("John Smith");
+        author.setNationality("British");
+        authorRepository.save(author);
+
+        Author probe = new Author();
+        probe.setNationality("American");
+        assertThat(authorRepository.findAll(Example.of(probe)))
+                .extracting(Author::getName)
+                .containsExactly("Jane Doe");
+        assertThat(authorRepository.count(Example.of(probe))).isEqualTo(1);
+
+        Author partialName = new Author();
+        partialName.setName("SMITH");
+        ExampleMatcher containing = ExampleMatcher.matching()
+                .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING)
+                .withIgnoreCase();
+        Optional<Author> found = authorRepository.findOne(Example.of(partialName, containing));
+        assertThat(found).isPresent();
+        assertThat(found.get().getName()).isEqualTo("John Smith");
+
+        Author any = new Author();
+        any.setName("Jane Doe");
+        any.setNationality("British");
+        assertThat(authorRepository.findAll(Example.of(any, ExampleMatcher.matchingAny()), Sort.by("name")))
+                .extracting(Author::getName)
+                .containsExactly("Jane Doe", "John Smith");
+
+        Author missing = new Author();
+        missing.setNationality("Canadian");
+        assertThat(authorRepository.exists(Example.of(missing))).isFalse();
+    }
+
+    @Test
+    public void testFindByExampleFluentQuery() {
+        // Teste para verificar a consulta fluente (findBy) com ordenação, projeção e paginação
+        Author author = new Author();
+        author.setName("Ann Lee");
+        author.setNationality("American");
+        authorRepository.save(author);
+
+        Author probe = new Author();
+        probe.setNationality("American");
+
+        List<Author> sorted = authorRepository.findBy(Example.of(probe),
+                query -> query.sortBy(Sort.by("name")).project("name").all());
+        assertThat(sorted).extracting(Author::getName).containsExactly("Ann Lee", "Jane Doe");
+        assertThat(sorted).extracting(Author::getNationality).containsOnlyNulls();
+
+        Page<Author> page = authorRepository.findBy(Example.of(probe),
+                query -> query.sortBy(Sort.by("name")).page(PageRequest.of(1, 1)));
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(Author::getName).containsExactly("Jane Doe");
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.db2.repository;
+
+import com.example.db2.dto.BookHistogramBucket;
+import com.example.db2.model.Author;
+import com.example.db2.model.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Cenários executados contra os dois armazenamentos: o Mongo (BookRepositoryTest) e o em memória
+// (InMemoryBookRepositoryTest). Cada subclasse fornece os repositórios a serem testados
+public abstract class AbstractBookRepositoryTest {
+
+    protected BookRepository bookRepository;
+
+    protected AuthorRepository authorRepository;
+
+    protected Book testBook;
+    protected Author testAuthor;
+
+    protected abstract BookRepository createBookRepository();
+
+    protected abstract AuthorRepository createAuthorRepository();
+
+    @BeforeEach
+    public void setUp() {
+        bookRepository = createBookRepository();
+        authorRepository = createAuthorRepository();
+
+        // Limpa os repositórios antes de cada teste
+        bookRepository.deleteAll();
+        authorRepository.deleteAll();
+
+        // Cria um autor de teste
+        testAuthor = new Author();
+        testAuthor.setName("Test Author");
+        testAuthor = authorRepository.save(testAuthor);
+
+        // Cria um livro de teste com o autor válido
+        testBook = new Book();
+        testBook.setTitle("Sample Book");
+        testBook.setAuthorId(testAuthor.getId());
+        testBook.setPublicationDate(LocalDate.of(2024, 1, 1)); // Definindo uma data
+        testBook.setGenre("Fiction"); // Novo campo
+        testBook.setIsbn("1234567890"); // Novo campo
+        testBook = bookRepository.save(testBook);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        // Limpa os repositórios após cada teste
+        bookRepository.deleteAll();
+        authorRepository.deleteAll();
+    }
+
+    @Test
+    public void testSaveBook() {
+        Book book = new Book();
+        book.setTitle("Another Book");
+        book.setAuthorId(testAuthor.getId());
+        book.setPublicationDate(LocalDate.of(2024, 2, 1)); // Definindo uma data
+        book.setGenre("Non-Fiction"); // Novo campo
+        book.setIsbn("0987654321"); // Novo campo
+
+        Book savedBook = bookRepository.save(book);
+
+        assertThat(savedBook.getId()).isNotNull();
+        assertThat(savedBook.getTitle()).isEqualTo("Another Book");
+        assertThat(savedBook.getAuthorId()).isEqualTo(testAuthor.getId());
+        assertThat(savedBook.getPublicationDate()).isEqualTo(LocalDate.of(2024, 2, 1)); // Verificando a data
+        assertThat(savedBook.getGenre()).isEqualTo("Non-Fiction"); // Verificando o campo genre
+        assertThat(savedBook.getIsbn()).isEqualTo("0987654321"); // Verificando o campo isbn
+    }
+
+    @Test
+    public void testFindAllBooks() {
+        List<Book> books = bookRepository.findAll();
+
+        assertThat(books).isNotEmpty();
+        assertThat(books).hasSize(1);
+        assertThat(books.get(0).getTitle()).isEqualTo("Sample Book");
+        assertThat(books.get(0).getPublicationDate()).isEqualTo(LocalDate.of(2024, 1, 1)); // Verificando a data
+        assertThat(books.get(0).getGenre()).isEqualTo("Fiction"); // Verificando o campo genre
+        assertThat(books.get(0).getIsbn()).isEqualTo("1234567890"); // Verificando o campo isbn
+    }
+
+    @Test
+    public void testFindBookById() {
+        Optional<Book> foundBook = bookRepository.findById(testBook.getId());
+
+        assertThat(foundBook).isPresent();
+        assertThat(foundBook.get().getTitle()).isEqualTo("Sample Book");
+        assertThat(foundBook.get().getAuthorId()).isEqualTo(testAuthor.getId());
+        assertThat(foundBook.get().getPublicationDate()).isEqualTo(LocalDate.of(2024, 1, 1)); // Verificando a data
+        assertThat(foundBook.get().getGenre()).isEqualTo("Fiction"); // Verificando o campo genre
+        assertThat(foundBook.get().getIsbn()).isEqualTo("1234567890"); // Verificando o campo isbn
+    }
+
+    @Test
+    public void testUpdateBook() {
+        Optional<Book> optionalBook = bookRepository.findById(testBook.getId());
+
+        assertThat(optionalBook).isPresent();
+
+        Book bookToUpdate = optionalBook.get();
+        bookToUpdate.setTitle("Updated Title");
+        bookToUpdate.setPublicationDate(LocalDate.of(2024, 3, 1)); // Atualizando a data
+        bookToUpdate.setGenre("Updated Genre"); // Atualizando o campo genre
+        bookToUpdate.setIsbn("2222222222"); // Atualizando o campo isbn
+        Book updatedBook = bookRepository.save(bookToUpdate);
+
+        assertThat(updatedBook.getTitle()).isEqualTo("Updated Title");
+        assertThat(updatedBook.getAuthorId()).isEqualTo(testAuthor.getId());
+        assertThat(updatedBook.getPublicationDate()).isEqualTo(LocalDate.of(2024, 3, 1)); // Verificando a data
+        assertThat(updatedBook.getGenre()).isEqualTo("Updated Genre"); // Verificando o campo genre
+        assertThat(updatedBook.getIsbn()).isEqualTo("2222222222"); // Verificando o campo isbn
+    }
+
+    @Test
+    public void testDeleteBook() {
+        Optional<Book> foundBook = bookRepository.findById(testBook.getId());
+        assertThat(foundBook).isPresent();
+
+        bookRepository.delete(foundBook.get());
+        Optional<Book> deletedBook = bookRepository.findById(testBook.getId());
+        assertThat(deletedBook).isNotPresent();
+    }
+
+    @Test
+    public void testFindByPublicationDateBetween() {
+        Book oldBook = new Book();
+        oldBook.setTitle("Old Book");
+        oldBook.setAuthorId(testAuthor.getId());
+        oldBook.setPublicationDate(LocalDate.of(1999, 6, 1));
+        bookRepository.save(oldBook);
+
+        // O intervalo fechado deve incluir o livro publicado exatamente na data final
+        Page<Book> books = bookRepository.findByPublicationDateBetween(
+                Range.closed(LocalDate.of(2020, 1, 1), LocalDate.of(2024, 1, 1)), PageRequest.of(0, 10));
+
+        assertThat(books.getTotalElements()).isEqualTo(1);
+        assertThat(books.getContent().get(0).getTitle()).isEqualTo("Sample Book");
+    }
+
+    @Test
+    public void testCountByPublicationYearAndGenre() {
+        Book book = new Book();
+        book.setTitle("Another Fiction Book");
+        book.setAuthorId(testAuthor.getId());
+        book.setPublicationDate(LocalDate.of(2024, 12, 31));
+        book.setGenre("Fiction");
+        bookRepository.save(book);
+
+        Book poetry = new Book();
+        poetry.setTitle("Poetry Book");
+        poetry.setAuthorId(testAuthor.getId());
+        poetry.setPublicationDate(LocalDate.of(2023, 5, 10));
+        poetry.setGenre("Poetry");
+        bookRepository.save(poetry);
+
+        List<BookHistogramBucket> buckets = bookRepository.countByPublicationYearAndGenre(null, null);
+
+        assertThat(buckets).containsExactly(
+                new BookHistogramBucket(2023, "Poetry", 1),
+                new BookHistogramBucket(2024, "Fiction", 2));
+    }
+
+    @Test
+    public void testVersionIsIncrementedOnSave() {
+        assertThat(testBook.getVersion()).isZero();
+
+        Book bookToUpdate = bookRepository.findById(testBook.getId()).orElseThrow();
+        bookToUpdate.setTitle("Updated Title");
+        bookRepository.save(bookToUpdate);
+
+        Optional<EntityVersion> version = bookRepository.findVersionById(testBook.getId());
+        assertThat(version).isPresent();
+        assertThat(version.get().getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testUpdateBookMovesQueryResults() {
+        Book bookToUpdate = bookRepository.findById(testBook.getId()).orElseThrow();
+        bookToUpdate.setTitle("Updated Title");
+        bookToUpdate.setAuthorId("author-2");
+        bookToUpdate.setIsbn("2222222222");
+        bookRepository.save(bookToUpdate);
+
+        assertThat(bookRepository.findByTitle("Sample Book")).isNotPresent();
+        assertThat(bookRepository.findByTitle("Updated Title")).isPresent();
+        assertThat(bookRepository.findByAuthorId(testAuthor.getId())).isEmpty();
+        assertThat(bookRepository.findByAuthorId("author-2")).hasSize(1);
+        assertThat(bookRepository.findByIsbn("1234567890")).isEmpty();
+        assertThat(bookRepository.findByIsbn("2222222222")).hasSize(1);
+    }
+
+    @Test
+    public void testFindByTitle() {
+        Optional<Book> foundBook = bookRepository.findByTitle("Sample Book");
+        assertThat(foundBook).isPresent();
+        assertThat(foundBook.get().getId()).isEqualTo(testBook.getId());
+
+        Book duplicate = new Book();
+        duplicate.setTitle("Sample Book");
+        bookRepository.save(duplicate);
+
+        assertThatThrownBy(() -> bookRepository.findByTitle("Sample Book"))
+                .isInstanceOf(IncorrectResultSizeDataAccessException.class);
+    }
+
+    @Test
+    public void testSaveWithStaleVersionFails() {
+        Book first = bookRepository.findById(testBook.getId()).orElseThrow();
+        Book second = bookRepository.findById(testBook.getId()).orElseThrow();
+
+        first.setTitle("First Update");
+        bookRepository.save(first);
+
+        second.setTitle("Second Update");
+        assertThatThrownBy(() -> bookRepository.save(second))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(bookRepository.findVersionById(testBook.getId()).orElseThrow().getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testDeleteWithStaleOrMissingVersionFails() {
+        Book stale = bookRepository.findById(testBook.getId()).orElseThrow();
+        Book current = bookRepository.findById(testBook.getId()).orElseThrow();
+        current.setTitle("Updated Title");
+        current = bookRepository.save(current);
+
+        // Versão desatualizada: o livro não é removido
+        assertThatThrownBy(() -> bookRepository.delete(stale))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(bookRepository.findById(testBook.getId())).isPresent();
+
+        // Livro já removido por outra requisição
+        bookRepository.delete(current);
+        Book removed = current;
+        assertThatThrownBy(() -> bookRepository.delete(removed))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    @Test
+    public void testFindByExample() {
+        Book poetry = new Book();
+        poetry.setTitle("Poetry Book");
+        poetry.setAuthorId(testAuthor.getId());
+        poetry.setGenre("Poetry");
+        bookRepository.save(poetry);
+
+        Book probe = new Book();
+        probe.setAuthorId(testAuthor.getId());
+        assertThat(bookRepository.findAll(Example.of(probe), Sort.by(Sort.Direction.DESC, "title")))
+                .extracting(Book::getTitle)
+                .containsExactly("Sample Book", "Poetry Book");
+
+        // Com NullHandler.INCLUDE, os campos nulos do exemplo também precisam ser nulos no documento
+        Book withoutIsbn = new Book();
+        withoutIsbn.setAuthorId(testAuthor.getId());
+        withoutIsbn.setGenre("Poetry");
+        ExampleMatcher includeNulls = ExampleMatcher.matching()
+                .withIncludeNullValues()
+                .withIgnorePaths("id", "title", "publicationDate", "version");
+        assertThat(bookRepository.findAll(Example.of(withoutIsbn, includeNulls)))
+                .extracting(Book::getTitle)
+                .containsExactly("Poetry Book");
+
+        Book prefix = new Book();
+        prefix.setTitle("^Samp");
+        ExampleMatcher regex = ExampleMatcher.matching().withStringMatcher(ExampleMatcher.StringMatcher.REGEX);
+        assertThat(bookRepository.findBy(Example.of(prefix, regex), query -> query.firstValue()))
+                .extracting(Book::getId)
+                .isEqualTo(testBook.getId());
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.db2.repository.memory;
+
+import com.example.db2.model.Author;
+import com.example.db2.repository.AbstractAuthorRepositoryTest;
+import com.example.db2.repository.AuthorRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Mesmos cenários de AuthorRepositoryTest (herdados), executados contra o armazenamento em memória
+public class InMemoryAuthorRepositoryTest extends AbstractAuthorRepositoryTest {
+
+    @Override
+    protected AuthorRepository createAuthorRepository() {
+        return new InMemoryAuthorRepository();
+    }
+
+    @Test
+    public void testReturnedAuthorsAreCopies() {
+        // Alterar um objeto lido não deve alterar o armazenamento sem um save
+        Author found = authorRepository.findById(testAuthor.getId()).orElseThrow();
+        found.setName("Changed");
+
+        assertThat(authorRepository.findById(testAuthor.getId()).orElseThrow().getName()).isEqualTo("Jane Doe");
+    }
+
+    @Test
+    public void testFindByBirthDateBetweenSorted() {
+        Author author = new Author();
+        author.setName("John Smith");
+        author.setBirthDate(LocalDate.of(1990, 5, 15));
+        authorRepository.save(author);
+
+        Page<Author> authors = authorRepository.findByBirthDateBetween(
+                Range.closed(LocalDate.of(1980, 1, 1), LocalDate.of(1995, 1, 1)),
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "birthDate")));
+
+        assertThat(authors.getTotalElements()).isEqualTo(2);
+        assertThat(authors.getContent()).hasSize(1);
+        assertThat(authors.getContent().get(0).getName()).isEqualTo("John Smith");
+    }
+}
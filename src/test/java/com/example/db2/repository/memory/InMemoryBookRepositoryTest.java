@@ -0,0 +1,19 @@
+package com.example.db2.repository.memory;
+
+import com.example.db2.repository.AbstractBookRepositoryTest;
+import com.example.db2.repository.AuthorRepository;
+import com.example.db2.repository.BookRepository;
+
+// Mesmos cenários de BookRepositoryTest (herdados), executados contra o armazenamento em memória
+public class InMemoryBookRepositoryTest extends AbstractBookRepositoryTest {
+
+    @Override
+    protected BookRepository createBookRepository() {
+        return new InMemoryBookRepository();
+    }
+
+    @Override
+    protected AuthorRepository createAuthorRepository() {
+        return new InMemoryAuthorRepository();
+    }
+}
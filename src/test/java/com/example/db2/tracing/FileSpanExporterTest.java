@@ -0,0 +1,78 @@
+package com.example.db2.tracing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileSpanExporterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testExportsOneJsonLinePerSpan(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("traces/spans.jsonl");
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(new FileSpanExporter(file)))
+                .build();
+        Tracer tracer = tracerProvider.get("test");
+
+        Span parent = tracer.spanBuilder("http get /api/books").startSpan();
+        try (Scope scope = parent.makeCurrent()) {
+            Span child = tracer.spanBuilder("BookRepository.findAll")
+                    .setAttribute("repository", "BookRepository")
+                    .startSpan();
+            child.setStatus(StatusCode.ERROR);
+            child.end();
+        } finally {
+            parent.end();
+        }
+        tracerProvider.shutdown(); // Fecha o arquivo
+
+        // O filho termina primeiro e é gravado antes do pai
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(2);
+        JsonNode child = objectMapper.readTree(lines.get(0));
+        JsonNode root = objectMapper.readTree(lines.get(1));
+
+        assertThat(child.get("name").asText()).isEqualTo("BookRepository.findAll");
+        assertThat(child.get("traceId").asText()).isEqualTo(root.get("traceId").asText());
+        assertThat(child.get("parentSpanId").asText()).isEqualTo(root.get("spanId").asText());
+        assertThat(child.get("kind").asText()).isEqualTo("INTERNAL");
+        assertThat(child.get("status").asText()).isEqualTo("ERROR");
+        assertThat(child.get("attributes").get("repository").asText()).isEqualTo("BookRepository");
+        assertThat(child.get("durationMicros").asLong()).isNotNegative();
+
+        assertThat(root.get("parentSpanId").isNull()).isTrue();
+        assertThat(root.get("status").asText()).isEqualTo("UNSET");
+    }
+
+    @Test
+    public void testAppendsToExistingFile(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("spans.jsonl");
+        for (int run = 0; run < 2; run++) { // Como em dois reinícios da aplicação
+            SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                    .addSpanProcessor(SimpleSpanProcessor.create(new FileSpanExporter(file)))
+                    .build();
+            tracerProvider.get("test").spanBuilder("run " + run).startSpan().end();
+            tracerProvider.shutdown();
+        }
+
+        assertThat(Files.readAllLines(file)).hasSize(2);
+    }
+}
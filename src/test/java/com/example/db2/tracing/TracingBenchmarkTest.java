@@ -0,0 +1,159 @@
+package com.example.db2.tracing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.observation.ObservationRegistryCustomizer;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+
+import com.example.db2.benchmark.LatencyBenchmark;
+import com.example.db2.model.Author;
+import com.example.db2.repository.AuthorRepository;
+import com.example.db2.repository.BookRepository;
+
+import io.micrometer.observation.ObservationRegistry;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Compara a latência das requisições com e sem rastreamento na mesma aplicação: um predicado no
+// ObservationRegistry liga e desliga todas as observações (requisição HTTP, repositórios, comandos
+// do Mongo e JSON), e as rodadas das duas configurações se alternam para diluir ruído e aquecimento.
+// A amostragem é a de management.tracing.sampling.probability. O teste falha se o rastreamento
+// custar mais que benchmark.tracing.max-overhead (1% por padrão) e grava a tabela em
+// target/benchmarks/tracing-overhead.md. Não roda por padrão:
+//   ./mvnw test -Dtest=TracingBenchmarkTest -Dbenchmark=true
+// Para o pior caso, com todas as requisições amostradas, acrescente
+// -Dmanagement.tracing.sampling.probability=1.0 -Dbenchmark.tracing.max-overhead=1
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(metrics = false)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class TracingBenchmarkTest {
+
+    private static final int WARMUP = 500;
+    private static final int ROUNDS = 10;
+    private static final int OPERATIONS_PER_ROUND = 500;
+
+    @TestConfiguration
+    static class ObservationSwitchConfig {
+
+        @Bean
+        AtomicBoolean tracingSwitch() {
+            return new AtomicBoolean(true);
+        }
+
+        @Bean
+        ObservationRegistryCustomizer<ObservationRegistry> tracingSwitchCustomizer(AtomicBoolean tracingSwitch) {
+            return registry -> registry.observationConfig().observationPredicate((name, context) -> tracingSwitch.get());
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${management.tracing.sampling.probability}")
+    private double samplingProbability;
+
+    @Value("${benchmark.tracing.max-overhead:0.01}")
+    private double maxOverhead;
+
+    @Autowired
+    private AtomicBoolean tracingSwitch;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private Author author;
+
+    @BeforeEach
+    public void setUp() {
+        author = new Author();
+        author.setName("Benchmark Author");
+        author = authorRepository.save(author);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        tracingSwitch.set(true);
+        bookRepository.deleteAll();
+        authorRepository.deleteAll();
+    }
+
+    @Test
+    public void benchmarkTracingOverhead() throws Exception {
+        LatencyBenchmark.measure(WARMUP, this::post);
+
+        List<long[]> postsOff = new ArrayList<>();
+        List<long[]> postsOn = new ArrayList<>();
+        List<long[]> filtersOff = new ArrayList<>();
+        List<long[]> filtersOn = new ArrayList<>();
+        int created = WARMUP;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (boolean tracing : round % 2 == 0 ? new boolean[] { false, true } : new boolean[] { true, false }) {
+                tracingSwitch.set(tracing);
+                int offset = created;
+                (tracing ? postsOn : postsOff).add(LatencyBenchmark.measure(OPERATIONS_PER_ROUND, i -> post(offset + i)));
+                // O filtro por autor passa pelo repositório e pela serialização, sem o cache de respostas
+                (tracing ? filtersOn : filtersOff).add(LatencyBenchmark.measure(OPERATIONS_PER_ROUND,
+                        i -> get("/api/books?authorId=" + author.getId() + "&limit=10")));
+                created += OPERATIONS_PER_ROUND;
+            }
+        }
+
+        LatencyBenchmark benchmark = new LatencyBenchmark("tracing-overhead");
+        LatencyBenchmark.Result postOff = benchmark.add("desligado", "post", LatencyBenchmark.concat(postsOff));
+        LatencyBenchmark.Result postOn = benchmark.add("amostragem " + samplingProbability, "post", LatencyBenchmark.concat(postsOn));
+        LatencyBenchmark.Result filterOff = benchmark.add("desligado", "filter", LatencyBenchmark.concat(filtersOff));
+        LatencyBenchmark.Result filterOn = benchmark.add("amostragem " + samplingProbability, "filter", LatencyBenchmark.concat(filtersOn));
+
+        double overhead = (double) (postOn.totalNanos() + filterOn.totalNanos())
+                / (postOff.totalNanos() + filterOff.totalNanos()) - 1;
+        benchmark.record(String.format("%d rodadas alternadas de %d requisições por operação e configuração",
+                        ROUNDS, OPERATIONS_PER_ROUND),
+                String.format("Custo do rastreamento: %.2f%% (limite %.2f%%)", overhead * 100, maxOverhead * 100));
+
+        assertThat(overhead).as("custo do rastreamento").isLessThanOrEqualTo(maxOverhead);
+    }
+
+    private void post(int i) throws IOException, InterruptedException {
+        String body = "{\"title\":\"Benchmark " + i + "\",\"authorId\":\"" + author.getId() + "\",\"genre\":\"Fiction\"}";
+        send(HttpRequest.newBuilder(uri("/api/books"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    private void get(String path) throws IOException, InterruptedException {
+        send(HttpRequest.newBuilder(uri(path)).GET().build());
+    }
+
+    private void send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Resposta inesperada: " + response.statusCode());
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
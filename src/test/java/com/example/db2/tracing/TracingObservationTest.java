@@ -0,0 +1,114 @@
+package com.example.db2.tracing;
+
+import com.example.db2.model.Author;
+import com.example.db2.repository.AuthorRepository;
+import com.example.db2.repository.BookRepository;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.tck.TestObservationRegistry;
+import io.micrometer.tracing.handler.TracingObservationHandler;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static io.micrometer.observation.tck.TestObservationRegistryAssert.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// As observações da aplicação devem fazer parte do trace recebido no cabeçalho traceparent.
+// @AutoConfigureObservability reativa o rastreamento, que o Spring Boot desliga nos testes
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(metrics = false)
+public class TracingObservationTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String TRACEPARENT = "00-" + TRACE_ID + "-00f067aa0ba902b7-01";
+
+    @TestConfiguration
+    static class ObservationConfig {
+
+        // Substitui o registro padrão; o Spring Boot aplica a ele os mesmos handlers de rastreamento
+        @Bean
+        TestObservationRegistry observationRegistry() {
+            return TestObservationRegistry.create();
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestObservationRegistry observationRegistry;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private Author author;
+
+    @BeforeEach
+    public void setUp() {
+        RestAssured.port = port;
+        author = new Author();
+        author.setName("Jane Doe");
+        author = authorRepository.save(author);
+        observationRegistry.clear(); // Descarta as observações da preparação
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bookRepository.deleteAll();
+        authorRepository.deleteAll();
+    }
+
+    @Test
+    public void testObservationsJoinIncomingTrace() {
+        Map<String, Object> book = new HashMap<>();
+        book.put("title", "Traced Book");
+        book.put("authorId", author.getId());
+
+        given()
+                .header("traceparent", TRACEPARENT)
+                .contentType(ContentType.JSON)
+                .body(book)
+                .when()
+                .post("/api/books")
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        assertThat(observationRegistry)
+                .hasObservationWithNameEqualTo("catalog.repository")
+                .that()
+                .hasBeenStarted()
+                .hasBeenStopped()
+                .hasContextualNameEqualTo("AuthorRepository.findById")
+                .hasLowCardinalityKeyValue("repository", "AuthorRepository")
+                .satisfies(context -> assertThat(traceIdOf(context)).isEqualTo(TRACE_ID));
+
+        assertThat(observationRegistry)
+                .hasObservationWithNameEqualTo("catalog.serialization")
+                .that()
+                .hasBeenStopped()
+                .hasLowCardinalityKeyValue("operation", "read")
+                .satisfies(context -> assertThat(traceIdOf(context)).isEqualTo(TRACE_ID));
+    }
+
+    private static String traceIdOf(Observation.Context context) {
+        TracingObservationHandler.TracingContext tracing = context.get(TracingObservationHandler.TracingContext.class);
+        assertThat(tracing).as("contexto de rastreamento de %s", context.getName()).isNotNull();
+        return tracing.getSpan().context().traceId();
+    }
+}